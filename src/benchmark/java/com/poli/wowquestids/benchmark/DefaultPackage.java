@@ -0,0 +1,72 @@
+package com.poli.wowquestids.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// JMH refuses benchmarks in the default package and named packages cannot import from it, so the code under test is reached reflectively.
+final class DefaultPackage {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private DefaultPackage() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static MethodHandle method(String className, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type(className).getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return lookup.unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static MethodHandle constructor(String className, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = type(className).getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object field(String className, String name) {
+        try {
+            Field field = type(className).getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object invoke(MethodHandle handle, Object... arguments) {
+        try {
+            return handle.invokeWithArguments(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
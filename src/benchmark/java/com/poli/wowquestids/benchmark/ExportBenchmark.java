@@ -0,0 +1,215 @@
+package com.poli.wowquestids.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Workbook export for one-hour and eight-hour recordings in the default, streaming and downsampled modes, a parallel batch export,
+// and the analytics behind the summary sheet. Export modes are chosen by system properties read at class initialisation, so each
+// mode runs in its own fork.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportBenchmark {
+
+    private static final Class<?> sessionType = DefaultPackage.type("LevelingDataParser$LevelingSession");
+    private static final Class<?> recordingType = DefaultPackage.type("LevelingDataParser$Recording");
+    private static final Class<?> analyticsType = DefaultPackage.type("LevelingAnalytics");
+    private static final Class<?> manifestType = DefaultPackage.type("ExportManifest");
+    private static final Class<?> metricsType = DefaultPackage.type("RunMetrics");
+    private static final MethodHandle newReader = DefaultPackage.constructor("SavedVariablesReader", Path.class, ObjectMapper.class);
+    private static final MethodHandle loadXpTable = DefaultPackage.method("XpTable", "load", String.class);
+    private static final MethodHandle newAnalytics = DefaultPackage.constructor("LevelingAnalytics", DefaultPackage.type("XpTable"), int.class);
+    // The two micro-benchmarks call through exact handle types so argument boxing does not dominate the measurement.
+    private static final MethodHandle analyze = DefaultPackage.method("LevelingAnalytics", "analyze", recordingType)
+            .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+    private static final MethodHandle xpGain = DefaultPackage.method("XpTable", "xpGain", double.class, double.class)
+            .asType(MethodType.methodType(long.class, Object.class, double.class, double.class));
+    private static final MethodHandle emptyManifest = DefaultPackage.method("ExportManifest", "empty", Path.class, String.class);
+    private static final MethodHandle exportSession = DefaultPackage.method("LevelingDataParser", "exportSession",
+            sessionType, Path.class, int.class, String.class, analyticsType, int.class, manifestType, metricsType);
+    private static final MethodHandle sessionsToSpreadsheets = DefaultPackage.method("LevelingDataParser", "sessionsToSpreadsheets",
+            Iterator.class, Path.class, ObjectMapper.class, analyticsType, manifestType, metricsType);
+    private static final MethodHandle newMetrics = DefaultPackage.constructor("RunMetrics", String.class);
+    private static final MethodHandle getRecordings = DefaultPackage.method("LevelingDataParser$LevelingSession", "getRecordings");
+
+    private static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setTimeZone(TimeZone.getDefault());
+        return mapper;
+    }
+
+    private static List<Object> generateSessions(Path dir, int sessions, int snapshots) throws IOException {
+        Path file = dir.resolve("PoliLevelingUtil.lua");
+        Fixtures.savedVariables(file, sessions, 2, snapshots);
+        List<Object> result = new ArrayList<>();
+        try (Closeable reader = (Closeable) DefaultPackage.invoke(newReader, file, newMapper())) {
+            ((Iterator<?>) reader).forEachRemaining(result::add);
+        }
+        Files.delete(file);
+        return result;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private Object analytics;
+    private Object xpTable;
+    private double[] levelPairs;
+
+    @Setup
+    public void setUp() {
+        xpTable = DefaultPackage.invoke(loadXpTable, (Object) null);
+        analytics = DefaultPackage.invoke(newAnalytics, xpTable, 5);
+        Random random = new Random(5);
+        levelPairs = new double[2048];
+        for (int i=0; i<levelPairs.length; i+=2) {
+            levelPairs[i] = 50 + random.nextDouble() * 9;
+            levelPairs[i + 1] = Math.min(60, levelPairs[i] + random.nextDouble() * 2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SessionState {
+        @Param({"720", "5760"})
+        public int snapshots;
+
+        private Object session;
+        private Object recording;
+        private Object manifest;
+        private Path dir;
+        private int sequence;
+
+        @Setup
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("export");
+            session = generateSessions(dir, 1, snapshots).get(0);
+            recording = Array.get(DefaultPackage.invoke(getRecordings, session), 0);
+            manifest = DefaultPackage.invoke(emptyManifest, dir.resolve("exportManifest.json"), "benchmark");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            deleteTree(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchState {
+        private List<Object> sessions;
+        private ObjectMapper mapper;
+        private Path dir;
+        private PrintStream stdout;
+
+        @Setup
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("exportBatch");
+            sessions = generateSessions(dir, 16, 720);
+            mapper = newMapper();
+            // The export prints one progress line per workbook.
+            stdout = DefaultPackage.silenceStdout();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            System.setOut(stdout);
+            deleteTree(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WorkbookSize {
+        public long workbookBytes;
+        public long workbooks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            workbookBytes = 0;
+            workbooks = 0;
+        }
+    }
+
+    private Path export(SessionState state, WorkbookSize size, int chartPoints) throws IOException {
+        Path excelFile = state.dir.resolve("LevelingData.xlsx");
+        DefaultPackage.invoke(exportSession, state.session, excelFile, state.sequence++, "benchmark", analytics, chartPoints, state.manifest,
+                DefaultPackage.invoke(newMetrics, "benchmark"));
+        size.workbookBytes += Files.size(excelFile);
+        size.workbooks++;
+        return excelFile;
+    }
+
+    @Benchmark
+    public Path exportSession(SessionState state, WorkbookSize size) throws IOException {
+        return export(state, size, 0);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dleveling.streaming=true"})
+    public Path exportSessionStreaming(SessionState state, WorkbookSize size) throws IOException {
+        return export(state, size, 0);
+    }
+
+    @Benchmark
+    public Path exportSessionDownsampled(SessionState state, WorkbookSize size) throws IOException {
+        return export(state, size, 500);
+    }
+
+    @Benchmark
+    public void sessionsToSpreadsheets(BatchState state) {
+        Object manifest = DefaultPackage.invoke(emptyManifest, state.dir.resolve("exportManifest.json"), "benchmark");
+        DefaultPackage.invoke(sessionsToSpreadsheets, state.sessions.iterator(), state.dir, state.mapper, analytics, manifest,
+                DefaultPackage.invoke(newMetrics, "benchmark"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object analyzeRecording(SessionState state) throws Throwable {
+        return (Object) analyze.invokeExact(analytics, state.recording);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long xpGain() throws Throwable {
+        long total = 0;
+        for (int i=0; i<levelPairs.length; i+=2) {
+            total += (long) xpGain.invokeExact(xpTable, levelPairs[i], levelPairs[i + 1]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,126 @@
+package com.poli.wowquestids.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+// Synthetic inputs shaped like the pages and SavedVariables files the tools see in practice, generated from fixed seeds so runs compare.
+final class Fixtures {
+
+    private static final String[] routes = {"Bastion", "Maldraxxus", "Ardenweald", "Revendreth", "The Maw"};
+
+    private Fixtures() {
+    }
+
+    static String listingPage(int quests) {
+        Random random = new Random(1);
+        StringBuilder html = new StringBuilder(quests * 160 + 4096);
+        html.append("<!DOCTYPE html><html><head><title>Quests - Shadowlands</title></head><body>");
+        html.append(filler(random, 2048));
+        html.append("<script>new Listview({template: 'quest', id: 'quests', data: [");
+        for (int i=0; i<quests; i++) {
+            if (i > 0) {
+                html.append(',');
+            }
+            int id = 57000 + i;
+            String name = i % 17 == 0 ? "[DNT] Test Quest " + id : "Quest number " + id;
+            html.append("{\"category\":10534,\"category2\":9,");
+            if (i % 5 == 0) {
+                html.append("\"daily\":1,");
+            }
+            html.append("\"id\":").append(id).append(",\"level\":").append(50 + i % 10).append(",\"name\":\"").append(name)
+                    .append("\",\"reqlevel\":50,\"side\":3,\"xp\":").append(4000 + i).append('}');
+        }
+        html.append("]});</script>");
+        html.append(filler(random, 2048));
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    static String questPage(int itemLinks) {
+        Random random = new Random(2);
+        StringBuilder html = new StringBuilder(itemLinks * 300 + 65536);
+        html.append("<!DOCTYPE html><html><body>");
+        for (int i=0; i<itemLinks; i++) {
+            html.append(filler(random, 256));
+            if (i % 3 == 0) {
+                html.append("<script>g_items.createIcon(").append(170000 + i).append(", 1, 0)</script>");
+            } else {
+                html.append("<a href=\"/item=").append(170000 + i).append("/quest-item\">Item</a>");
+            }
+        }
+        html.append(filler(random, 32768));
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    static String itemPage(boolean usable) {
+        Random random = new Random(3);
+        StringBuilder html = new StringBuilder(32768);
+        html.append("<!DOCTYPE html><html><body>");
+        html.append(filler(random, 8192));
+        html.append("<h1 class=\"heading-size-1\">Anima-Infused Relic</h1><noscript><table><tr><td><b class=\"q1\">Anima-Infused Relic</b><br>Quest Item<br>");
+        if (usable) {
+            html.append("<span class=\"q2\">Use: <a href=\"/spell=336112\">Hurl the relic at a nearby enemy.</a> (30 Sec Cooldown)</span>");
+        } else {
+            html.append("<span class=\"q\">\"A faint glow pulses within.\"</span>");
+        }
+        html.append("</td></tr></table></noscript>");
+        html.append(filler(random, 16384));
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    // Writes a PoliLevelingUtil SavedVariables file: a Lua string holding the escaped JSON array of sessions.
+    static void savedVariables(Path file, int sessions, int recordingsPerSession, int snapshotsPerRecording) throws IOException {
+        Random random = new Random(4);
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("\r\nPoliLevelingUtilDB = \"[");
+            for (int s=0; s<sessions; s++) {
+                if (s > 0) {
+                    out.write(',');
+                }
+                int month = 1 + (s / 28) % 12;
+                int day = 1 + s % 28;
+                int hour = s % 24;
+                out.write(String.format(Locale.ROOT, "{\\\"loginTime\\\":\\\"%02d/%02d/21 %02d:00:00\\\",\\\"logoutTime\\\":null,\\\"recordings\\\":[", month, day, hour));
+                for (int r=0; r<recordingsPerSession; r++) {
+                    if (r > 0) {
+                        out.write(',');
+                    }
+                    double level = 50 + random.nextDouble() * 8;
+                    out.write(String.format(Locale.ROOT, "{\\\"startTime\\\":\\\"%02d/%02d/21 %02d:%02d:05\\\",\\\"stopTime\\\":null,\\\"name\\\":\\\"%s\\\",\\\"startGetTime\\\":%d,\\\"characterLevel\\\":%s,\\\"snapshots\\\":[",
+                            month, day, hour, r, routes[random.nextInt(routes.length)], 1000 + r, level));
+                    double speed = 0.0003 + random.nextDouble() * 0.0006;
+                    for (int k=0; k<snapshotsPerRecording; k++) {
+                        level = Math.min(60, level + random.nextDouble() * speed);
+                        if (k > 0) {
+                            out.write(',');
+                        }
+                        out.write(Double.toString(level));
+                    }
+                    out.write("]}");
+                }
+                out.write("]}");
+            }
+            out.write("]\"\r\n");
+        }
+    }
+
+    private static String filler(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("<div class=\"text\">");
+            for (int i=0; i<8; i++) {
+                text.append((char) ('a' + random.nextInt(26))).append("lorem ipsum dolor ");
+            }
+            text.append("</div>\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.poli.wowquestids.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Reading SavedVariables files of increasing size, through the streaming JSON reader and through the binary session archive.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SavedVariablesBenchmark {
+
+    private static final MethodHandle newReader = DefaultPackage.constructor("SavedVariablesReader", Path.class, ObjectMapper.class);
+    private static final MethodHandle createArchive = DefaultPackage.method("SessionArchive", "create", Path.class, Path.class);
+    private static final MethodHandle teeArchive = DefaultPackage.method("SessionArchive$Writer", "tee", Iterator.class);
+    private static final MethodHandle commitArchive = DefaultPackage.method("SessionArchive$Writer", "commit");
+    private static final MethodHandle openArchive = DefaultPackage.method("SessionArchive", "open", Path.class);
+
+    @Param({"10", "100", "1000"})
+    public int sessions;
+
+    private ObjectMapper mapper;
+    private Path dir;
+    private Path savedVariables;
+    private Path archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper();
+        mapper.setTimeZone(TimeZone.getDefault());
+        dir = Files.createTempDirectory("savedVariables");
+        savedVariables = dir.resolve("PoliLevelingUtil.lua");
+        archive = dir.resolve("levelingSessions.bin");
+        Fixtures.savedVariables(savedVariables, sessions, 3, 720);
+        try (Closeable reader = (Closeable) DefaultPackage.invoke(newReader, savedVariables, mapper);
+             Closeable writer = (Closeable) DefaultPackage.invoke(createArchive, archive, savedVariables)) {
+            Iterator<?> tee = (Iterator<?>) DefaultPackage.invoke(teeArchive, writer, reader);
+            while (tee.hasNext()) {
+                tee.next();
+            }
+            DefaultPackage.invoke(commitArchive, writer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void parseSavedVariables(Blackhole blackhole) throws IOException {
+        try (Closeable reader = (Closeable) DefaultPackage.invoke(newReader, savedVariables, mapper)) {
+            drain((Iterator<?>) reader, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void readSessionArchive(Blackhole blackhole) throws IOException {
+        try (Closeable reader = (Closeable) DefaultPackage.invoke(openArchive, archive)) {
+            drain((Iterator<?>) reader, blackhole);
+        }
+    }
+
+    private static void drain(Iterator<?> sessions, Blackhole blackhole) {
+        while (sessions.hasNext()) {
+            blackhole.consume(sessions.next());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.poli.wowquestids.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScraperBenchmark {
+
+    private static final MethodHandle collectQuestData = DefaultPackage.method("QuestDataScraper", "collectQuestData",
+            Map.class, String.class, DefaultPackage.type("ScraperRules"));
+    private static final MethodHandle collectQuestItemIds = DefaultPackage.method("QuestDataScraper", "collectQuestItemIds", Set.class, String.class);
+    private static final MethodHandle classifyItem = DefaultPackage.method("QuestDataScraper", "classifyItem", String.class, DefaultPackage.type("ScraperRules"));
+    private static final MethodHandle collectQuestItemData = DefaultPackage.method("QuestDataScraper", "collectQuestItemData",
+            Map.class, Integer.class, DefaultPackage.type("ItemClassification"));
+    private static final MethodHandle newScanner = DefaultPackage.constructor("QuestItemIdScanner", Set.class);
+    private static final MethodHandle scan = DefaultPackage.method("QuestItemIdScanner", "scan", InputStream.class);
+    private static final MethodHandle loadRules = DefaultPackage.method("ScraperRules", "load", String.class);
+    private static final MethodHandle formatForName = DefaultPackage.method("QuestTableFormat", "forName", String.class);
+    private static final MethodHandle writeTables = DefaultPackage.method("QuestTableFormat", "write", DefaultPackage.type("QuestTables"), Path.class);
+    private static final MethodHandle newTables = DefaultPackage.constructor("QuestTables", Map.class, Map.class, long.class);
+    // Called once per listed quest, so through an exact handle type to keep reflection out of the regex baseline.
+    private static final MethodHandle isLevelingQuest = DefaultPackage.method("QuestDataScraper", "isLevelingQuest", String.class, DefaultPackage.type("ScraperRules"))
+            .asType(MethodType.methodType(boolean.class, String.class, Object.class));
+    private static final MethodHandle extractTooltip = DefaultPackage.method("WowheadExtractor", "extractTooltip", String.class);
+    // Baselines: the listing regex the scraper still falls back to, and the tooltip regex WowheadExtractor replaced.
+    private static final Pattern questListingPattern = (Pattern) DefaultPackage.field("QuestDataScraper", "questListingPattern");
+    private static final Pattern tooltipPattern = Pattern.compile("(<h1(.|\\s)+?<\\/noscript>)");
+
+    private Object rules;
+    private String listingHtml;
+    private String questHtml;
+    private byte[] questBytes;
+    private String usableItemHtml;
+    private PrintStream stdout;
+
+    @State(Scope.Benchmark)
+    public static class QuestTableState {
+        @Param({"lua", "json", "binary"})
+        public String format;
+
+        private Object questTableFormat;
+        private Object tables;
+        private Path outputDir;
+
+        @Setup
+        public void setUp() throws IOException {
+            questTableFormat = DefaultPackage.invoke(formatForName, format);
+            Map<Integer, String> quests = new ConcurrentHashMap<>();
+            DefaultPackage.invoke(collectQuestData, quests, Fixtures.listingPage(1000), DefaultPackage.invoke(loadRules, (Object) null));
+            Map<Integer, Map<String, Integer>> questItems = new ConcurrentHashMap<>();
+            for (int i=0; i<60; i++) {
+                Map<String, Integer> itemData = new HashMap<>();
+                itemData.put("spellID", 330000 + i);
+                if (i % 2 == 0) {
+                    itemData.put("cooldown", 30);
+                }
+                questItems.put(170000 + i, itemData);
+            }
+            tables = DefaultPackage.invoke(newTables, quests, questItems, 0L);
+            outputDir = Files.createTempDirectory("questTables");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            try (Stream<Path> files = Files.walk(outputDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        rules = DefaultPackage.invoke(loadRules, (Object) null);
+        listingHtml = Fixtures.listingPage(1000);
+        questHtml = Fixtures.questPage(40);
+        questBytes = questHtml.getBytes(StandardCharsets.UTF_8);
+        usableItemHtml = Fixtures.itemPage(true);
+        // classifyItem prints every accepted tooltip, which would otherwise swamp the benchmark log.
+        stdout = DefaultPackage.silenceStdout();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public Map<Integer, String> collectQuestData() {
+        Map<Integer, String> quests = new HashMap<>();
+        DefaultPackage.invoke(collectQuestData, quests, listingHtml, rules);
+        return quests;
+    }
+
+    @Benchmark
+    public Map<Integer, String> collectQuestDataRegex() throws Throwable {
+        Map<Integer, String> quests = new HashMap<>();
+        Matcher m = questListingPattern.matcher(listingHtml);
+        while (m.find()) {
+            if ((boolean) isLevelingQuest.invokeExact(m.group(5), rules)) {
+                quests.put(Integer.parseInt(m.group(4)), m.group(5));
+            }
+        }
+        return quests;
+    }
+
+    @Benchmark
+    public String extractTooltip() {
+        return (String) DefaultPackage.invoke(extractTooltip, usableItemHtml);
+    }
+
+    @Benchmark
+    public String extractTooltipRegex() {
+        Matcher m = tooltipPattern.matcher(usableItemHtml);
+        return m.find() ? m.group(1) : null;
+    }
+
+    @Benchmark
+    public Set<Integer> collectQuestItemIdsRegex() {
+        Set<Integer> itemIds = new HashSet<>();
+        DefaultPackage.invoke(collectQuestItemIds, itemIds, questHtml);
+        return itemIds;
+    }
+
+    @Benchmark
+    public Set<Integer> scanQuestItemIds() {
+        Set<Integer> itemIds = new HashSet<>();
+        DefaultPackage.invoke(scan, DefaultPackage.invoke(newScanner, itemIds), new ByteArrayInputStream(questBytes));
+        return itemIds;
+    }
+
+    @Benchmark
+    public Map<Integer, Map<String, Integer>> classifyAndCollectQuestItem() {
+        Map<Integer, Map<String, Integer>> questItems = new HashMap<>();
+        DefaultPackage.invoke(collectQuestItemData, questItems, 170001, DefaultPackage.invoke(classifyItem, usableItemHtml, rules));
+        return questItems;
+    }
+
+    @Benchmark
+    public Path writeQuestTables(QuestTableState state) {
+        Path file = state.outputDir.resolve("questTables." + state.format);
+        DefaultPackage.invoke(writeTables, state.questTableFormat, state.tables, file);
+        return file;
+    }
+}
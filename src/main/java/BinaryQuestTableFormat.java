@@ -0,0 +1,73 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+class BinaryQuestTableFormat implements QuestTableFormat {
+
+    private static final int magic = 0x51544231;
+    private static final int noCooldown = -1;
+
+    @Override
+    public String defaultFileName() {
+        return "questTables.bin";
+    }
+
+    @Override
+    public void write(QuestTables tables, Path file) throws IOException {
+        try (FileChannel channel = QuestTableFormat.openForWrite(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(magic);
+            out.writeInt(tables.quests.size());
+            for (Map.Entry<Integer, String> entry : new TreeMap<>(tables.quests).entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeUTF(entry.getValue().toLowerCase());
+            }
+            out.writeInt(tables.questItems.size());
+            for (Map.Entry<Integer, Map<String, Integer>> entry : new TreeMap<>(tables.questItems).entrySet()) {
+                Integer cooldown = entry.getValue().get("cooldown");
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().get("spellID"));
+                out.writeInt(cooldown != null ? cooldown : noCooldown);
+            }
+        }
+    }
+
+    @Override
+    public QuestTables read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16))) {
+            if (in.readInt() != magic) {
+                throw new IOException(file + " is not a binary quest table");
+            }
+            int questCount = in.readInt();
+            Map<Integer, String> quests = new ConcurrentHashMap<>(questCount * 2);
+            for (int i=0; i<questCount; i++) {
+                quests.put(in.readInt(), in.readUTF());
+            }
+            int itemCount = in.readInt();
+            Map<Integer, Map<String, Integer>> questItems = new ConcurrentHashMap<>(itemCount * 2);
+            for (int i=0; i<itemCount; i++) {
+                int itemId = in.readInt();
+                Map<String, Integer> itemData = new HashMap<>();
+                itemData.put("spellID", in.readInt());
+                int cooldown = in.readInt();
+                if (cooldown != noCooldown) {
+                    itemData.put("cooldown", cooldown);
+                }
+                questItems.put(itemId, itemData);
+            }
+            return new QuestTables(quests, questItems, Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+class CachingPageFetcher implements PageFetcher {
+
+    private final PageCache cache;
+    private final long ttlMillis;
+    private final boolean offline;
+    private final RunMetrics metrics;
+
+    CachingPageFetcher(PageCache cache, long ttlMillis, boolean offline, RunMetrics metrics) {
+        this.cache = cache;
+        this.ttlMillis = ttlMillis;
+        this.offline = offline;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String fetchFromCache(String url) throws IOException {
+        PageCache.Entry entry = cache.lookup(url);
+        if (entry == null) {
+            if (offline) {
+                throw new FileNotFoundException("No cached copy of " + url + " (offline mode)");
+            }
+            return null;
+        }
+        if (offline || entry.isFresh(ttlMillis)) {
+            metrics.count("page cache hits", 1);
+            return parse(cache.readBody(entry), entry.charset, url);
+        }
+        return null;
+    }
+
+    // Called once fetchFromCache has missed, so a cached copy here is stale and only supplies the validators for a conditional request.
+    @Override
+    public String fetch(String url) throws IOException {
+        PageCache.Entry entry = cache.lookup(url);
+        Connection.Response response = execute(url, entry);
+        if (response.statusCode() == 304 && entry != null) {
+            metrics.count("page cache revalidations", 1);
+            entry = cache.touch(entry);
+            return parse(cache.readBody(entry), entry.charset, url);
+        }
+        byte[] body = response.bodyAsBytes();
+        metrics.count("page cache misses", 1);
+        metrics.count("bytes fetched", body.length);
+        cache.store(url, body, response.charset(), response.header("ETag"), response.header("Last-Modified"));
+        return parse(body, response.charset(), url);
+    }
+
+    @Override
+    public InputStream openStreamFromCache(String url) throws IOException {
+        PageCache.Entry entry = cache.lookup(url);
+        if (entry == null) {
+            if (offline) {
+                throw new FileNotFoundException("No cached copy of " + url + " (offline mode)");
+            }
+            return null;
+        }
+        if ((offline || entry.isFresh(ttlMillis)) && isAsciiCompatible(entry.charset)) {
+            metrics.count("page cache hits", 1);
+            return cache.openBody(entry);
+        }
+        return null;
+    }
+
+    @Override
+    public InputStream openStream(String url) throws IOException {
+        PageCache.Entry entry = cache.lookup(url);
+        if (entry != null && (offline || entry.isFresh(ttlMillis))) {
+            if (!isAsciiCompatible(entry.charset)) {
+                return null;
+            }
+            metrics.count("page cache hits", 1);
+            return cache.openBody(entry);
+        }
+        Connection.Response response = execute(url, entry);
+        if (response.statusCode() == 304 && entry != null) {
+            entry = cache.touch(entry);
+            if (!isAsciiCompatible(entry.charset)) {
+                return null;
+            }
+            metrics.count("page cache revalidations", 1);
+            return cache.openBody(entry);
+        }
+        if (!isAsciiCompatible(response.charset())) {
+            response.bodyStream().close();
+            return null;
+        }
+        metrics.count("page cache misses", 1);
+        return cache.storeWhileReading(url, countingStream(response.bodyStream()), response.charset(), response.header("ETag"), response.header("Last-Modified"));
+    }
+
+    private InputStream countingStream(InputStream body) {
+        LongAdder bytesFetched = metrics.adder("bytes fetched");
+        return new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    bytesFetched.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesFetched.add(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    private Connection.Response execute(String url, PageCache.Entry entry) throws IOException {
+        if (offline) {
+            throw new FileNotFoundException("No cached copy of " + url + " (offline mode)");
+        }
+        Connection connection = Jsoup.connect(url).ignoreHttpErrors(true).maxBodySize(0);
+        if (entry != null && entry.etag != null) {
+            connection.header("If-None-Match", entry.etag);
+        }
+        if (entry != null && entry.lastModified != null) {
+            connection.header("If-Modified-Since", entry.lastModified);
+        }
+        Connection.Response response = connection.execute();
+        if (response.statusCode() != 200 && !(response.statusCode() == 304 && entry != null)) {
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+        return response;
+    }
+
+    private static boolean isAsciiCompatible(String charset) {
+        if (charset == null) {
+            return true;
+        }
+        String name = charset.toUpperCase();
+        return !name.startsWith("UTF-16") && !name.startsWith("UTF-32") && !name.startsWith("UTF16") && !name.startsWith("UTF32");
+    }
+
+    private static String parse(byte[] body, String charset, String url) throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), charset, url).html();
+    }
+}
@@ -0,0 +1,202 @@
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+class CrawlEngine implements AutoCloseable {
+
+    interface PageHandler<T> {
+        void handle(T target, String html) throws IOException;
+    }
+
+    interface StreamHandler<T> {
+        void handle(T target, InputStream body) throws IOException;
+    }
+
+    private interface Task<T> {
+        void run(T target) throws IOException;
+    }
+
+    private interface BodyConsumer {
+        void accept(InputStream body) throws IOException;
+    }
+
+    private interface Attempt<R> {
+        R run() throws IOException;
+    }
+
+    private final PageFetcher fetcher;
+    private final ExecutorService executor;
+    private final HostRateLimiter rateLimiter;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final RunMetrics metrics;
+
+    CrawlEngine(PageFetcher fetcher, int concurrency, long minRequestIntervalMillis, int maxRetries, long retryBackoffMillis, RunMetrics metrics) {
+        this.fetcher = fetcher;
+        this.rateLimiter = new HostRateLimiter(TimeUnit.MILLISECONDS.toNanos(minRequestIntervalMillis));
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.metrics = metrics;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "crawl-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Request latencies are recorded per kind of page, covering each network attempt but not rate limiting or retry backoff.
+    <T> Map<T, IOException> crawl(String kind, Collection<T> targets, Function<T, String> urlFor, PageHandler<T> handler) throws IOException {
+        RunMetrics.Histogram latency = metrics.histogram(kind + " requests");
+        return run(targets, target -> handler.handle(target, fetch(urlFor.apply(target), latency)));
+    }
+
+    <T> Map<T, IOException> crawlStreaming(String kind, Collection<T> targets, Function<T, String> urlFor, StreamHandler<T> streamHandler,
+                                           PageHandler<T> fallback) throws IOException {
+        RunMetrics.Histogram latency = metrics.histogram(kind + " requests");
+        return run(targets, target -> {
+            String url = urlFor.apply(target);
+            if (!stream(url, latency, body -> streamHandler.handle(target, body))) {
+                fallback.handle(target, fetch(url, latency));
+            }
+        });
+    }
+
+    private <T> Map<T, IOException> run(Collection<T> targets, Task<T> task) throws IOException {
+        Map<T, Future<?>> futures = new LinkedHashMap<>();
+        for (T target : targets) {
+            futures.put(target, executor.submit(() -> {
+                task.run(target);
+                return null;
+            }));
+        }
+        Map<T, IOException> failures = new LinkedHashMap<>();
+        for (Map.Entry<T, Future<?>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(f -> f.cancel(true));
+                throw new IOException("Crawl interrupted", e);
+            }
+        }
+        return failures;
+    }
+
+    private String fetch(String url, RunMetrics.Histogram latency) throws IOException {
+        String cached = fetcher.fetchFromCache(url);
+        if (cached != null) {
+            return cached;
+        }
+        return withRetry(url, latency, () -> fetcher.fetch(url));
+    }
+
+    private boolean stream(String url, RunMetrics.Histogram latency, BodyConsumer consumer) throws IOException {
+        try (InputStream cached = fetcher.openStreamFromCache(url)) {
+            if (cached != null) {
+                consumer.accept(cached);
+                return true;
+            }
+        }
+        return withRetry(url, latency, () -> {
+            try (InputStream body = fetcher.openStream(url)) {
+                if (body == null) {
+                    return false;
+                }
+                consumer.accept(body);
+                return true;
+            }
+        });
+    }
+
+    private <R> R withRetry(String url, RunMetrics.Histogram latency, Attempt<R> attempt) throws IOException {
+        String host = URI.create(url).getHost();
+        for (int i=0; ; i++) {
+            rateLimiter.acquire(host);
+            RunMetrics.Timer timer = latency.time();
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                if (i >= maxRetries || !isRetryable(e)) {
+                    metrics.count("failed requests", 1);
+                    throw e;
+                }
+            } finally {
+                timer.close();
+            }
+            metrics.count("retried requests", 1);
+            long backoff = retryBackoffMillis << i;
+            sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        }
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof HttpStatusException) {
+            int status = ((HttpStatusException) e).getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return !(e instanceof UnsupportedMimeTypeException || e instanceof FileNotFoundException);
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Crawl interrupted", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    static class HostRateLimiter {
+        private final long intervalNanos;
+        private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+
+        HostRateLimiter(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+
+        void acquire(String host) throws IOException {
+            if (intervalNanos <= 0) {
+                return;
+            }
+            AtomicLong nextSlot = nextSlots.computeIfAbsent(host, h -> new AtomicLong(System.nanoTime()));
+            long now = System.nanoTime();
+            long slot;
+            while (true) {
+                long next = nextSlot.get();
+                slot = Math.max(next, now);
+                if (nextSlot.compareAndSet(next, slot + intervalNanos)) {
+                    break;
+                }
+            }
+            long waitNanos = slot - now;
+            if (waitNanos > 0) {
+                sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+class ExportManifest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path file;
+    private final String reportVersion;
+    private final Map<String, String> previousHashes;
+    private final Map<String, String> previousSkipped;
+    private final Map<String, String> hashes = new HashMap<>();
+    private final Map<String, String> skipped = new HashMap<>();
+    private final Map<String, Integer> committedSequences = new HashMap<>();
+    private final Set<String> claimed = new HashSet<>();
+
+    private ExportManifest(Path file, String reportVersion, Map<String, String> previousHashes, Map<String, String> previousSkipped) {
+        this.file = file;
+        this.reportVersion = reportVersion;
+        this.previousHashes = previousHashes;
+        this.previousSkipped = previousSkipped;
+    }
+
+    static ExportManifest load(Path file, String reportVersion) throws IOException {
+        if (!Files.exists(file)) {
+            return empty(file, reportVersion);
+        }
+        JsonNode root = mapper.readTree(file.toFile());
+        if (!reportVersion.equals(root.path("reportVersion").asText())) {
+            return empty(file, reportVersion);
+        }
+        Map<String, String> sessions = mapper.convertValue(root.get("sessions"), new TypeReference<>(){});
+        Map<String, String> skipped = root.has("skipped") ? mapper.convertValue(root.get("skipped"), new TypeReference<>(){}) : Map.of();
+        return new ExportManifest(file, reportVersion, sessions, skipped);
+    }
+
+    static ExportManifest empty(Path file, String reportVersion) {
+        return new ExportManifest(file, reportVersion, Map.of(), Map.of());
+    }
+
+    // A workbook name claimed twice in one run belongs to sessions that logged in within the same second,
+    // so it is always rebuilt to keep the last session's content on disk.
+    synchronized boolean needsExport(Path workbook, String contentHash) {
+        String name = workbook.getFileName().toString();
+        if (!claimed.add(name)) {
+            return true;
+        }
+        if (contentHash.equals(previousHashes.get(name)) && Files.exists(workbook)) {
+            hashes.put(name, contentHash);
+            return false;
+        }
+        if (contentHash.equals(previousSkipped.get(name))) {
+            skipped.put(name, contentHash);
+            return false;
+        }
+        return true;
+    }
+
+    // Sessions with nothing to export are remembered too, so an unchanged one is not reconsidered on every run.
+    synchronized void skip(Path workbook, String contentHash) {
+        skipped.put(workbook.getFileName().toString(), contentHash);
+    }
+
+    synchronized void commit(Path tempFile, Path workbook, int sequence, String contentHash) throws IOException {
+        String name = workbook.getFileName().toString();
+        Integer committed = committedSequences.get(name);
+        if (committed != null && committed > sequence) {
+            Files.delete(tempFile);
+            return;
+        }
+        Files.move(tempFile, workbook, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committedSequences.put(name, sequence);
+        hashes.put(name, contentHash);
+    }
+
+    synchronized void save() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "exportManifest", ".tmp");
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("reportVersion", reportVersion);
+        root.put("sessions", new TreeMap<>(hashes));
+        root.put("skipped", new TreeMap<>(skipped));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), root);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,29 @@
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Content fingerprints shared by the page cache, the export manifest and the versioned lookup tables.
+class Hashing {
+
+    private Hashing() {
+    }
+
+    static String sha256(byte[] data) {
+        return hex(newSha256().digest(data));
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
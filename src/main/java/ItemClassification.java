@@ -0,0 +1,60 @@
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class ItemClassification {
+    String rejectedReason;
+    Integer spellID;
+    Integer cooldown;
+    Long classifiedAt;
+
+    static ItemClassification rejected(String reason) {
+        ItemClassification classification = new ItemClassification();
+        classification.rejectedReason = reason;
+        return classification;
+    }
+
+    static ItemClassification accepted(int spellID, Integer cooldown) {
+        ItemClassification classification = new ItemClassification();
+        classification.spellID = spellID;
+        classification.cooldown = cooldown;
+        return classification;
+    }
+
+    @JsonIgnore
+    public boolean isAccepted() {
+        return rejectedReason == null;
+    }
+
+    public String getRejectedReason() {
+        return rejectedReason;
+    }
+
+    public void setRejectedReason(String rejectedReason) {
+        this.rejectedReason = rejectedReason;
+    }
+
+    public Integer getSpellID() {
+        return spellID;
+    }
+
+    public void setSpellID(Integer spellID) {
+        this.spellID = spellID;
+    }
+
+    public Integer getCooldown() {
+        return cooldown;
+    }
+
+    public void setCooldown(Integer cooldown) {
+        this.cooldown = cooldown;
+    }
+
+    public Long getClassifiedAt() {
+        return classifiedAt;
+    }
+
+    public void setClassifiedAt(Long classifiedAt) {
+        this.classifiedAt = classifiedAt;
+    }
+}
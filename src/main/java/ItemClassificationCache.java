@@ -0,0 +1,73 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ItemClassificationCache {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path file;
+    private final String rulesVersion;
+    private final Map<Integer, ItemClassification> classifications;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private ItemClassificationCache(Path file, String rulesVersion, Map<Integer, ItemClassification> classifications) {
+        this.file = file;
+        this.rulesVersion = rulesVersion;
+        this.classifications = new ConcurrentHashMap<>(classifications);
+    }
+
+    // Classifications older than maxAgeMillis, or saved before they carried a timestamp, are dropped so the item page is read again.
+    static ItemClassificationCache load(Path file, String rulesVersion, long maxAgeMillis) throws IOException {
+        if (!Files.exists(file)) {
+            return new ItemClassificationCache(file, rulesVersion, Map.of());
+        }
+        JsonNode root = mapper.readTree(file.toFile());
+        if (!rulesVersion.equals(root.path("rulesVersion").asText())) {
+            return new ItemClassificationCache(file, rulesVersion, Map.of());
+        }
+        Map<Integer, ItemClassification> classifications = mapper.convertValue(root.get("items"), new TypeReference<>(){});
+        long classifiedAfter = System.currentTimeMillis() - maxAgeMillis;
+        classifications.values().removeIf(classification -> classification.classifiedAt == null || classification.classifiedAt < classifiedAfter);
+        return new ItemClassificationCache(file, rulesVersion, classifications);
+    }
+
+    ItemClassification get(int itemId) {
+        ItemClassification classification = classifications.get(itemId);
+        (classification != null ? hits : misses).incrementAndGet();
+        return classification;
+    }
+
+    void put(int itemId, ItemClassification classification) {
+        classification.classifiedAt = System.currentTimeMillis();
+        classifications.put(itemId, classification);
+    }
+
+    void save() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "itemClassifications", ".tmp");
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("rulesVersion", rulesVersion);
+        root.put("items", new TreeMap<>(classifications));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), root);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,102 @@
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+class JsonQuestTableFormat implements QuestTableFormat {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    @Override
+    public String defaultFileName() {
+        return "questTables.json";
+    }
+
+    @Override
+    public void write(QuestTables tables, Path file) throws IOException {
+        try (FileChannel channel = QuestTableFormat.openForWrite(file);
+             JsonGenerator generator = jsonFactory.createGenerator(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("questIDToName");
+            for (Map.Entry<Integer, String> entry : new TreeMap<>(tables.quests).entrySet()) {
+                generator.writeStringField(entry.getKey().toString(), entry.getValue().toLowerCase());
+            }
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("questNames");
+            for (String name : QuestTableFormat.questNames(tables.quests)) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("questItems");
+            for (Map.Entry<Integer, Map<String, Integer>> entry : new TreeMap<>(tables.questItems).entrySet()) {
+                generator.writeObjectFieldStart(entry.getKey().toString());
+                generator.writeNumberField("spellID", entry.getValue().get("spellID"));
+                Integer cooldown = entry.getValue().get("cooldown");
+                if (cooldown != null) {
+                    generator.writeNumberField("cooldown", cooldown);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public QuestTables read(Path file) throws IOException {
+        Map<Integer, String> quests = new ConcurrentHashMap<>();
+        Map<Integer, Map<String, Integer>> questItems = new ConcurrentHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             JsonParser parser = jsonFactory.createParser(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16))) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String table = parser.getCurrentName();
+                JsonToken start = parser.nextToken();
+                if (table.equals("questIDToName")) {
+                    expect(start, JsonToken.START_OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        int questId = Integer.parseInt(parser.getCurrentName());
+                        parser.nextToken();
+                        quests.put(questId, parser.getText());
+                    }
+                } else if (table.equals("questItems")) {
+                    expect(start, JsonToken.START_OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        int itemId = Integer.parseInt(parser.getCurrentName());
+                        expect(parser.nextToken(), JsonToken.START_OBJECT);
+                        Map<String, Integer> itemData = new HashMap<>();
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = parser.getCurrentName();
+                            parser.nextToken();
+                            itemData.put(field, parser.getIntValue());
+                        }
+                        questItems.put(itemId, itemData);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new QuestTables(quests, questItems, Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed quest table JSON: expected " + expected + " but found " + actual);
+        }
+    }
+}
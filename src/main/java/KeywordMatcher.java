@@ -0,0 +1,141 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+
+class KeywordMatcher {
+
+    private final String[] keywords;
+    private final int[] asciiSymbols = new int[128];
+    private final char[] otherChars;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final int[] matches;
+
+    private KeywordMatcher(List<String> keywords) {
+        this.keywords = keywords.toArray(new String[0]);
+        TreeSet<Character> otherCharSet = new TreeSet<>();
+        int symbol = 1;
+        for (String keyword : this.keywords) {
+            for (int i=0; i<keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c < 128) {
+                    if (asciiSymbols[c] == 0) {
+                        asciiSymbols[c] = symbol++;
+                    }
+                } else {
+                    otherCharSet.add(c);
+                }
+            }
+        }
+        this.otherChars = new char[otherCharSet.size()];
+        int i = 0;
+        for (char c : otherCharSet) {
+            otherChars[i++] = c;
+        }
+        this.alphabetSize = symbol + otherChars.length;
+
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        trie.add(new int[alphabetSize]);
+        output.add(-1);
+        for (int k=0; k<this.keywords.length; k++) {
+            int state = 0;
+            String keyword = this.keywords[k];
+            for (int j=0; j<keyword.length(); j++) {
+                int s = symbolOf(keyword.charAt(j));
+                if (trie.get(state)[s] == 0) {
+                    trie.get(state)[s] = trie.size();
+                    trie.add(new int[alphabetSize]);
+                    output.add(-1);
+                }
+                state = trie.get(state)[s];
+            }
+            if (output.get(state) == -1) {
+                output.set(state, k);
+            }
+        }
+
+        int stateCount = trie.size();
+        this.transitions = new int[stateCount * alphabetSize];
+        this.matches = new int[stateCount];
+        int[] failure = new int[stateCount];
+        for (int state=0; state<stateCount; state++) {
+            matches[state] = output.get(state);
+        }
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int s=1; s<alphabetSize; s++) {
+            int next = trie.get(0)[s];
+            transitions[s] = next;
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            if (matches[state] == -1) {
+                matches[state] = matches[failure[state]];
+            }
+            for (int s=1; s<alphabetSize; s++) {
+                int next = trie.get(state)[s];
+                if (next != 0) {
+                    failure[next] = transitions[failure[state] * alphabetSize + s];
+                    transitions[state * alphabetSize + s] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * alphabetSize + s] = transitions[failure[state] * alphabetSize + s];
+                }
+            }
+        }
+    }
+
+    static KeywordMatcher compile(Collection<String> keywords) {
+        List<String> folded = new ArrayList<>(keywords.size());
+        for (String keyword : keywords) {
+            if (!keyword.isEmpty()) {
+                folded.add(fold(keyword));
+            }
+        }
+        return new KeywordMatcher(folded);
+    }
+
+    // Keywords are folded one char at a time exactly as the text is, so no locale or multi-char lowercase mapping can make them disagree.
+    private static String fold(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i=0; i<chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private int symbolOf(char c) {
+        c = Character.toLowerCase(c);
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? alphabetSize - otherChars.length + index : 0;
+    }
+
+    String findFirst(CharSequence text) {
+        return findFirst(text, 0, text.length());
+    }
+
+    String findFirst(CharSequence text, int start, int end) {
+        int state = 0;
+        for (int i=start; i<end; i++) {
+            state = transitions[state * alphabetSize + symbolOf(text.charAt(i))];
+            if (matches[state] != -1) {
+                return keywords[matches[state]];
+            }
+        }
+        return null;
+    }
+
+    boolean matches(CharSequence text) {
+        return findFirst(text) != null;
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+class LevelingAnalytics {
+
+    private static final int samplesPerMinute = 12;
+    private static final double secondsPerSample = 5.0;
+
+    final XpTable xpTable;
+    private final int windowSamples;
+
+    LevelingAnalytics(XpTable xpTable, int windowMinutes) {
+        if (windowMinutes < 1) {
+            throw new IllegalArgumentException("Rate window must be at least one minute");
+        }
+        this.xpTable = xpTable;
+        this.windowSamples = windowMinutes * samplesPerMinute;
+    }
+
+    String fingerprint() {
+        return xpTable.fingerprint + "/" + windowSamples;
+    }
+
+    RecordingStats analyze(LevelingDataParser.Recording recording) {
+        SnapshotSeries snapshots = recording.snapshots;
+        int n = snapshots.size();
+        if (n == 0) {
+            return new RecordingStats(0, durationMinutes(recording, 0), 0, recording.characterLevel, new double[1], new double[1], 0, 0, 0);
+        }
+        int window = Math.min(windowSamples, n);
+        long startXp = xpTable.totalXp(recording.characterLevel);
+
+        int fullMinutes = n / samplesPerMinute;
+        int minuteRows = fullMinutes == 0 || n % samplesPerMinute == 0 ? fullMinutes : fullMinutes + 1;
+        double[] minutes = new double[minuteRows + 1];
+        double[] levelDifferences = new double[minuteRows + 1];
+        double[] windowRates = new double[n - window + 1];
+        // xpAt[i % window] holds the XP earned by snapshot i, so the sample one window back is still there when it is needed.
+        long[] xpAt = new long[window];
+
+        for (int i=0; i<n; i++) {
+            double level = snapshots.get(i);
+            long xp = xpTable.totalXp(level) - startXp;
+            if (i >= window - 1) {
+                long windowStartXp = i >= window ? xpAt[i % window] : 0;
+                windowRates[i - window + 1] = (xp - windowStartXp) * 3600.0 / (window * secondsPerSample);
+            }
+            xpAt[i % window] = xp;
+            if ((i + 1) % samplesPerMinute == 0) {
+                int m = (i + 1) / samplesPerMinute;
+                minutes[m] = m;
+                levelDifferences[m] = level - (m == 1 ? recording.characterLevel : snapshots.get(i - samplesPerMinute));
+            }
+        }
+        if (minuteRows != fullMinutes) {
+            minutes[minuteRows] = n / (double) samplesPerMinute;
+            levelDifferences[minuteRows] = snapshots.last() - snapshots.get(fullMinutes * samplesPerMinute - 1);
+        }
+
+        Arrays.sort(windowRates);
+        return new RecordingStats(xpTable.xpGain(recording.characterLevel, snapshots.last()), durationMinutes(recording, n),
+                (snapshots.last() - recording.characterLevel) * 100, snapshots.last(), minutes, levelDifferences,
+                percentile(windowRates, 10), percentile(windowRates, 50), percentile(windowRates, 90));
+    }
+
+    private static double durationMinutes(LevelingDataParser.Recording recording, int snapshots) {
+        if (recording.stopTime != null && recording.startTime != null) {
+            return (recording.stopTime.getTime() - recording.startTime.getTime()) / 1000.0 / 60.0;
+        }
+        return snapshots * secondsPerSample / 60.0;
+    }
+
+    private static double percentile(double[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    static class RecordingStats {
+        final long xpGain;
+        final double durationMinutes;
+        final double percentXPGain;
+        final double stopLevel;
+        final double[] minutes;
+        final double[] levelDifferences;
+        final double lowXpPerHour;
+        final double medianXpPerHour;
+        final double highXpPerHour;
+
+        RecordingStats(long xpGain, double durationMinutes, double percentXPGain, double stopLevel, double[] minutes, double[] levelDifferences,
+                       double lowXpPerHour, double medianXpPerHour, double highXpPerHour) {
+            this.xpGain = xpGain;
+            this.durationMinutes = durationMinutes;
+            this.percentXPGain = percentXPGain;
+            this.stopLevel = stopLevel;
+            this.minutes = minutes;
+            this.levelDifferences = levelDifferences;
+            this.lowXpPerHour = lowXpPerHour;
+            this.medianXpPerHour = medianXpPerHour;
+            this.highXpPerHour = highXpPerHour;
+        }
+
+        // A recording with no measurable duration reports no rate rather than an infinite or NaN one.
+        double xpPerMinute() {
+            return durationMinutes > 0 ? xpGain / durationMinutes : 0;
+        }
+
+        double xpPerHour() {
+            return xpPerMinute() * 60;
+        }
+
+        double percentXPPerMinute() {
+            return durationMinutes > 0 ? percentXPGain / durationMinutes : 0;
+        }
+    }
+}
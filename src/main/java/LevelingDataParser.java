@@ -1,5 +1,4 @@
 import com.fasterxml.jackson.annotation.JsonFormat;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -7,111 +6,419 @@ import org.apache.poi.ss.util.WorkbookUtil;
 import org.apache.poi.xddf.usermodel.*;
 import org.apache.poi.xddf.usermodel.chart.*;
 import org.apache.poi.xddf.usermodel.chart.AxisCrosses;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.*;
-import org.json.simple.parser.JSONParser;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LevelingDataParser {
 
     private static final String levelingDataFile = "C:\\Program Files (x86)\\World of Warcraft\\_beta_\\WTF\\Account\\975281#4\\SavedVariables\\PoliLevelingUtil.lua";
     private static final String destFileLocation = "C:\\Users\\Adam\\Desktop\\WoWLevelingReports\\";
 
-    private static final Map<Integer, Integer> xpPerLevel;
-    static {
-        Map<Integer, Integer> map = new HashMap<>();
-        map.put(50, 194030);
-        map.put(51, 212870);//
-        map.put(52, 225770);//this is the amount of exp required to go from 52 to 53
-        map.put(53, 240255);//
-        map.put(54, 255180);//
-        map.put(55, 272795);//
-        map.put(56, 291495);//
-        map.put(57, 311490);//
-        map.put(58, 332165);//
-        map.put(59, 353410);//
-        xpPerLevel = Collections.unmodifiableMap(map);
-    }
-
-    public static void main(String[] args) throws IOException, org.json.simple.parser.ParseException, ParseException {
-        String levelingDataJsonString = getLevelingDataJsonString(levelingDataFile);
+    private static final String manifestFileName = "exportManifest.json";
+    private static final String archiveFileName = "levelingSessions.bin";
+    private static final String metricsFileName = "exportMetrics.json";
+    private static final boolean archiveSessions = Boolean.parseBoolean(System.getProperty("leveling.archive", "true"));
+    private static final String reportVersion = "3";
+    private static final boolean fullRebuild = Boolean.getBoolean("leveling.rebuild");
+    private static final boolean watchDataFile = Boolean.getBoolean("leveling.watch");
+    private static final long watchQuietMillis = Long.getLong("leveling.watchQuietMillis", 2000);
+    private static final boolean streamingExport = Boolean.getBoolean("leveling.streaming");
+    private static final int streamingRowWindow = Integer.getInteger("leveling.rowWindow", SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+    private static final int exportParallelism = Integer.getInteger("leveling.parallelism", Runtime.getRuntime().availableProcessors());
+    private static final String xpTableFile = System.getProperty("leveling.xpTable");
+    private static final int rateWindowMinutes = Integer.getInteger("leveling.rateWindowMinutes", 5);
+    private static final String recordingSources = System.getProperty("leveling.sources", levelingDataFile);
+    private static final String recordingStoreFile = System.getProperty("leveling.store", destFileLocation + "recordingStore.bin");
+    private static final int chartPointBudget = chartPointBudget(Integer.getInteger("leveling.chartPoints", 0));
+    private static final int downsampledColumn = 40;
+    private static final int[] summaryColumns = {1, 2, 3, 6, 7};
+    private static final int[] rateColumns = {0, 1, 2, 3, 4};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
         ObjectMapper mapper = new ObjectMapper();
         mapper.setTimeZone(TimeZone.getDefault());
-        List<LevelingSession> sessions = mapper.readValue(levelingDataJsonString, new TypeReference<>(){});
-        sessionsToSpreadsheets(sessions.toArray(new LevelingSession[0]), destFileLocation);
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(xpTableFile), rateWindowMinutes);
+        if (args.length > 0 && args[0].equals("query")) {
+            queryRecordings(Arrays.copyOfRange(args, 1, args.length), mapper, analytics);
+            return;
+        }
+        Path dataFile = Path.of(levelingDataFile);
+        Path destDir = Path.of(destFileLocation);
+        exportSessions(dataFile, destDir, mapper, analytics, fullRebuild);
+        if (watchDataFile) {
+            watchAndExport(dataFile, destDir, mapper, analytics);
+        }
+    }
+
+    private static void queryRecordings(String[] filters, ObjectMapper mapper, LevelingAnalytics analytics) throws IOException {
+        RecordingStore.Query query = parseQuery(filters);
+        List<Path> files = new ArrayList<>();
+        for (String source : recordingSources.split(File.pathSeparator)) {
+            files.add(Path.of(source));
+        }
+        Path storeFile = Path.of(recordingStoreFile);
+        Files.createDirectories(storeFile.toAbsolutePath().getParent());
+        RecordingStore store = RecordingStore.load(storeFile, analytics.fingerprint());
+        if (store.refresh(files, mapper, analytics) > 0) {
+            store.save();
+        }
+
+        long start = System.nanoTime();
+        List<RecordingStore.Entry> results = store.query(query);
+        Map<String, List<Double>> routes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (RecordingStore.Entry entry : results) {
+            routes.computeIfAbsent(entry.name, k -> new ArrayList<>()).add(entry.xpPerMinute * 60);
+        }
+        double elapsedMillis = (System.nanoTime() - start) / 1e6;
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yy HH:mm");
+        for (RecordingStore.Entry entry : results) {
+            System.out.printf("%s  %-30s %5.2f -> %5.2f  %6.1f min  %8.1f XP/min  %9.0f XP/hour (median %dm window %9.0f)  %s%n",
+                    dateFormat.format(new Date(entry.startTime)), entry.name, entry.startLevel, entry.stopLevel, entry.durationMinutes,
+                    entry.xpPerMinute, entry.xpPerMinute * 60, rateWindowMinutes, entry.medianWindowXpPerHour, entry.source);
+        }
+        for (Map.Entry<String, List<Double>> route : routes.entrySet()) {
+            double[] rates = route.getValue().stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            System.out.printf("Route %-30s %4d matching runs, median %9.0f XP/hour (all runs: %9.0f)%n",
+                    route.getKey(), rates.length, RecordingStore.median(rates), store.routeMedianXpPerHour(route.getKey()));
+        }
+        System.out.printf("%d of %d recordings matched in %.2f ms%n", results.size(), store.size(), elapsedMillis);
     }
 
-    private static String getLevelingDataJsonString(String filename) throws IOException, org.json.simple.parser.ParseException {
-        Path file = Path.of(filename);
-        String fileDataString = Files.readString(file);
-        String result = fileDataString.substring(fileDataString.indexOf("[{"), fileDataString.indexOf("\"\r\n"));
-        result = result.replaceAll("\\\\", "");
-        return new JSONParser().parse(result).toString();
+    private static RecordingStore.Query parseQuery(String[] filters) {
+        RecordingStore.Query query = new RecordingStore.Query();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yy");
+        dateFormat.setLenient(false);
+        for (String filter : filters) {
+            int equals = filter.indexOf('=');
+            String key = equals != -1 ? filter.substring(0, equals) : filter;
+            String value = equals != -1 ? filter.substring(equals + 1) : "";
+            try {
+                switch (key) {
+                    case "name":
+                        query.name = value;
+                        break;
+                    case "levels":
+                        double[] levels = parseRange(value);
+                        query.minLevel = levels[0];
+                        query.maxLevel = value.indexOf('-') == -1 ? Math.nextDown(levels[0] + 1) : levels[1];
+                        break;
+                    case "xpPerMinute":
+                        double[] rates = parseRange(value);
+                        query.minXpPerMinute = rates[0];
+                        query.maxXpPerMinute = rates[1];
+                        break;
+                    case "from":
+                        query.fromTime = dateFormat.parse(value).getTime();
+                        break;
+                    case "to":
+                        query.toTime = dateFormat.parse(value).getTime() + TimeUnit.DAYS.toMillis(1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown query filter " + filter + ", expected name=, levels=, xpPerMinute=, from= or to=");
+                }
+            } catch (ParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Could not parse query filter " + filter, e);
+            }
+        }
+        return query;
     }
 
-    private static void sessionsToSpreadsheets(LevelingSession[] sessions, String fileLocation) throws IOException  {
+    // "a-b", "a-" and "-b" are open-ended ranges; a single value is both ends.
+    private static double[] parseRange(String value) {
+        int dash = value.indexOf('-');
+        if (dash == -1) {
+            double exact = Double.parseDouble(value);
+            return new double[] {exact, exact};
+        }
+        String low = value.substring(0, dash).strip();
+        String high = value.substring(dash + 1).strip();
+        return new double[] {
+                low.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(low),
+                high.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(high)
+        };
+    }
 
-        for (int i=0; i<sessions.length; i++) {
-            String wbName = "LevelingData_" + new SimpleDateFormat("MMddyy_HHmmss").format(sessions[i].loginTime) + ".xlsx";
-            XSSFWorkbook wb = new XSSFWorkbook();
-            createSummarySheet(sessions[i], wb);
-            Recording[] recordings = sessions[i].recordings;
-            if (recordings.length == 0) {
-                return;
+    // Largest-Triangle-Three-Buckets always keeps both endpoints plus one point per bucket, so a budget of 1 or 2 is raised to 3.
+    private static int chartPointBudget(int requested) {
+        if (requested > 0 && requested < SeriesDownsampler.minimumBudget) {
+            System.out.println("leveling.chartPoints=" + requested + " is below the minimum of " + SeriesDownsampler.minimumBudget + ", using "
+                    + SeriesDownsampler.minimumBudget);
+            return SeriesDownsampler.minimumBudget;
+        }
+        return requested;
+    }
+
+    private static void exportSessions(Path dataFile, Path destDir, ObjectMapper mapper, LevelingAnalytics analytics, boolean rebuild) throws IOException {
+        Files.createDirectories(destDir);
+        Path manifestFile = destDir.resolve(manifestFileName);
+        // Streaming and downsampling both change the workbooks written, so switching either one rebuilds every report.
+        String version = reportVersion + "/" + (streamingExport ? "streaming" : "in-memory") + "/" + chartPointBudget + "/" + analytics.fingerprint();
+        ExportManifest manifest = rebuild ? ExportManifest.empty(manifestFile, version) : ExportManifest.load(manifestFile, version);
+        Path archiveFile = destDir.resolve(archiveFileName);
+        RunMetrics metrics = new RunMetrics("LevelingDataParser");
+        try {
+            if (archiveSessions && SessionArchive.isCurrent(archiveFile, dataFile)) {
+                try (SessionArchive.Reader sessions = SessionArchive.open(archiveFile)) {
+                    sessionsToSpreadsheets(sessions, destDir, mapper, analytics, manifest, metrics);
+                }
+            } else {
+                try (SavedVariablesReader reader = new SavedVariablesReader(dataFile, mapper);
+                     SessionArchive.Writer archive = archiveSessions ? SessionArchive.create(archiveFile, dataFile) : null) {
+                    sessionsToSpreadsheets(archive != null ? archive.tee(reader) : reader, destDir, mapper, analytics, manifest, metrics);
+                    if (archive != null) {
+                        RunMetrics.Timer timer = metrics.phase("commit archive").time();
+                        try {
+                            archive.commit();
+                        } finally {
+                            timer.close();
+                        }
+                    }
+                }
             }
-            for (int j=0; j<recordings.length; j++) {
-                Recording recording = recordings[j];
-                XSSFSheet sheet = wb.createSheet(createSheetName(recording, wb, j));
-
-                Row row = sheet.createRow(0);
-                row.createCell(0).setCellValue(0);
-                row.createCell(1).setCellValue(recording.characterLevel);
-                for (int k=1; k<=recording.snapshots.length; k++) {
-                    row = sheet.createRow(k);
-                    row.createCell(0).setCellValue(k * 5);
-                    row.createCell(1).setCellValue(recording.snapshots[k-1]);
+        } finally {
+            RunMetrics.Timer timer = metrics.phase("save manifest").time();
+            try {
+                manifest.save();
+            } finally {
+                timer.close();
+            }
+        }
+        metrics.printSummary();
+        metrics.writeReport(destDir.resolve(metricsFileName));
+    }
+
+    private static void watchAndExport(Path dataFile, Path destDir, ObjectMapper mapper, LevelingAnalytics analytics) throws IOException, InterruptedException {
+        Path dir = dataFile.toAbsolutePath().getParent();
+        try (WatchService watcher = dir.getFileSystem().newWatchService()) {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            System.out.println("Watching " + dataFile + " for changes");
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                // The game can write the file in several bursts, so wait for it to go quiet before reparsing.
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || dataFile.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    if (!key.reset()) {
+                        System.out.println(dir + " is no longer accessible, stopping watch");
+                        return;
+                    }
+                    key = watcher.poll(watchQuietMillis, TimeUnit.MILLISECONDS);
                 }
-                createChartOnSheet(sheet, recording.snapshots.length, 1, 0, 1, "Time (seconds)", "Level");
-
-                row = sheet.getRow(0);
-                row.createCell(2).setCellValue(0);
-                row.createCell(3).setCellValue(0);
-                int k;
-                for (k=11; k<recording.snapshots.length; k+=12) {
-                    row = sheet.getRow((k + 1) / 12);
-                    row.createCell(2).setCellValue((k + 1) / 12);
-                    if (k == 11) {
-                        row.createCell(3).setCellValue(recording.snapshots[11] - recording.characterLevel);
-                    } else {
-                        row.createCell(3).setCellValue(recording.snapshots[k] - recording.snapshots[k - 12]);
+                if (changed) {
+                    try {
+                        exportSessions(dataFile, destDir, mapper, analytics, false);
+                    } catch (IOException | UncheckedIOException e) {
+                        System.out.println("Failed to re-export " + dataFile + ": " + e);
                     }
                 }
-                if (k != 11) {
-                    if (k-recording.snapshots.length != 11) {
-                        row = sheet.getRow((k + 1) / 12);
-                        row.createCell(2).setCellValue((k/12*12+11-(k-recording.snapshots.length)) / 12.0);
-                        row.createCell(3).setCellValue(recording.snapshots[recording.snapshots.length-1] - recording.snapshots[recording.snapshots.length-12+(k-recording.snapshots.length)]);
+            }
+        }
+    }
+
+    // Reading and hashing happen on this thread while workbooks are built in the pool, so their phases overlap the export phase.
+    private static void sessionsToSpreadsheets(Iterator<LevelingSession> sessions, Path destDir, ObjectMapper mapper, LevelingAnalytics analytics,
+                                               ExportManifest manifest, RunMetrics metrics) throws IOException {
+        RunMetrics.Phase exportPhase = metrics.phase("export workbooks");
+        RunMetrics.Phase readPhase = metrics.phase("read sessions");
+        RunMetrics.Phase hashPhase = metrics.phase("hash sessions");
+        RunMetrics.Timer exportTimer = exportPhase.time();
+        ForkJoinPool pool = new ForkJoinPool(exportParallelism);
+        Semaphore inFlight = new Semaphore(exportParallelism * 2);
+        AtomicInteger exported = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int unchanged = 0;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        try {
+            int sequence = 0;
+            while (true) {
+                long readStart = System.nanoTime();
+                if (!sessions.hasNext()) {
+                    readPhase.addNanos(System.nanoTime() - readStart);
+                    break;
+                }
+                LevelingSession session = sessions.next();
+                readPhase.addNanos(System.nanoTime() - readStart);
+                readPhase.addItems(1);
+                int sessionSequence = sequence++;
+                Path excelFile = destDir.resolve("LevelingData_" + new SimpleDateFormat("MMddyy_HHmmss").format(session.loginTime) + ".xlsx");
+                String contentHash;
+                RunMetrics.Timer timer = hashPhase.time();
+                try {
+                    contentHash = Hashing.sha256(mapper.writeValueAsBytes(session));
+                } finally {
+                    timer.close();
+                }
+                hashPhase.addItems(1);
+                if (!manifest.needsExport(excelFile, contentHash)) {
+                    unchanged++;
+                    continue;
+                }
+                String login = new SimpleDateFormat("MM/dd/yy HH:mm:ss").format(session.loginTime);
+                if (session.recordings.length == 0) {
+                    System.out.println("Skipping session " + login + " with no recordings");
+                    manifest.skip(excelFile, contentHash);
+                    continue;
+                }
+                inFlight.acquireUninterruptibly();
+                tasks.add(pool.submit(() -> {
+                    try {
+                        exportSession(session, excelFile, sessionSequence, contentHash, analytics, chartPointBudget, manifest, metrics);
+                        exportPhase.addItems(1);
+                        System.out.printf("Exported %s (%d written, %d failed)%n", excelFile.getFileName(), exported.incrementAndGet(), failed.get());
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        System.out.println("Failed to export session " + login + ": " + e);
+                    } finally {
+                        inFlight.release();
                     }
-                    createChartOnSheet(sheet, recording.snapshots.length % 12 == 0 ? recording.snapshots.length / 12 : recording.snapshots.length / 12 + 1, 2, 2, 3, "Time (minutes)", "Level Difference");
+                }));
+            }
+        } finally {
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            pool.shutdown();
+            exportTimer.close();
+        }
+        metrics.count("sessions exported", exported.get());
+        metrics.count("sessions unchanged", unchanged);
+        metrics.count("sessions failed", failed.get());
+        System.out.printf("%d sessions exported, %d unchanged%n", exported.get(), unchanged);
+        if (failed.get() > 0) {
+            System.out.printf("%d of %d sessions failed to export%n", failed.get(), tasks.size());
+        }
+    }
+
+    static void exportSession(LevelingSession session, Path excelFile, int sequence, String contentHash, LevelingAnalytics analytics, int chartPoints,
+                              ExportManifest manifest, RunMetrics metrics) throws IOException {
+        long start = System.nanoTime();
+        Recording[] recordings = session.recordings;
+        LevelingAnalytics.RecordingStats[] stats = new LevelingAnalytics.RecordingStats[recordings.length];
+        int snapshots = 0;
+        for (int j=0; j<recordings.length; j++) {
+            stats[j] = analytics.analyze(recordings[j]);
+            snapshots += recordings[j].snapshots.size();
+        }
+        long analyzed = System.nanoTime();
+        Workbook wb = streamingExport ? new SXSSFWorkbook(streamingRowWindow) : new XSSFWorkbook();
+        try {
+            createSummarySheet(session, stats, wb);
+            for (int j=0; j<recordings.length; j++) {
+                createRecordingSheet(recordings[j], stats[j], wb, j, chartPoints);
+            }
+            createRatesSheet(session, stats, wb);
+            long built = System.nanoTime();
+            // Sessions that share a login second map to the same file; the manifest lets the one read last win, exactly as in a serial export.
+            Path tempFile = excelFile.resolveSibling(excelFile.getFileName() + "." + sequence + ".tmp");
+            long bytes;
+            try {
+                try (OutputStream fileOut = Files.newOutputStream(tempFile)) {
+                    wb.write(fileOut);
                 }
+                bytes = Files.size(tempFile);
+                manifest.commit(tempFile, excelFile, sequence, contentHash);
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            long written = System.nanoTime();
+            metrics.histogram("analyze session").record(analyzed - start);
+            metrics.histogram("build workbook").record(built - analyzed);
+            metrics.histogram("write workbook").record(written - built);
+            metrics.count("workbook bytes written", bytes);
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("workbook", excelFile.getFileName().toString());
+            detail.put("recordings", recordings.length);
+            detail.put("snapshots", snapshots);
+            detail.put("analyzeMillis", RunMetrics.millis(analyzed - start));
+            detail.put("buildMillis", RunMetrics.millis(built - analyzed));
+            detail.put("writeMillis", RunMetrics.millis(written - built));
+            detail.put("bytes", bytes);
+            metrics.detail("workbooks", detail);
+        } finally {
+            if (wb instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) wb).dispose();
+            }
+        }
+    }
+
+    private static void createRecordingSheet(Recording recording, LevelingAnalytics.RecordingStats stats, Workbook wb, int recordingNumber, int chartPoints) {
+        Sheet sheet = wb.createSheet(createSheetName(recording, wb, recordingNumber));
+        SnapshotSeries snapshots = recording.snapshots;
+        int n = snapshots.size();
+
+        double[] seconds = new double[n + 1];
+        double[] levels = new double[n + 1];
+        levels[0] = recording.characterLevel;
+        for (int k=1; k<=n; k++) {
+            seconds[k] = k * 5.0;
+            levels[k] = snapshots.get(k-1);
+        }
+
+        int[] levelPoints = SeriesDownsampler.largestTriangleThreeBuckets(seconds, levels, chartPoints);
+        int[] minutePoints = SeriesDownsampler.largestTriangleThreeBuckets(stats.minutes, stats.levelDifferences, chartPoints);
+
+        // Rows are written strictly top to bottom so the streaming workbook can flush them behind us.
+        for (int k=0; k<=n; k++) {
+            Row row = sheet.createRow(k);
+            row.createCell(0).setCellValue(seconds[k]);
+            row.createCell(1).setCellValue(levels[k]);
+            if (k < stats.minutes.length) {
+                row.createCell(2).setCellValue(stats.minutes[k]);
+                row.createCell(3).setCellValue(stats.levelDifferences[k]);
+            }
+            if (levelPoints != null && k < levelPoints.length) {
+                row.createCell(downsampledColumn).setCellValue(seconds[levelPoints[k]]);
+                row.createCell(downsampledColumn + 1).setCellValue(levels[levelPoints[k]]);
             }
-            File excelFile = new File(fileLocation + wbName);
-            excelFile.getParentFile().mkdirs();
-            excelFile.createNewFile();
-            FileOutputStream fileOut = new FileOutputStream(excelFile);
-            wb.write(fileOut);
-            fileOut.close();
+            if (minutePoints != null && k < minutePoints.length) {
+                row.createCell(downsampledColumn + 2).setCellValue(stats.minutes[minutePoints[k]]);
+                row.createCell(downsampledColumn + 3).setCellValue(stats.levelDifferences[minutePoints[k]]);
+            }
+        }
+
+        // Downsampled series go to hidden columns past the charts; the full-resolution data in columns A-D is left untouched.
+        if (levelPoints != null) {
+            createChartOnSheet(sheet, 1, downsampledColumn, select(seconds, levelPoints), downsampledColumn + 1, select(levels, levelPoints), "Time (seconds)", "Level");
+        } else {
+            createChartOnSheet(sheet, 1, 0, seconds, 1, levels, "Time (seconds)", "Level");
+        }
+        if (minutePoints != null) {
+            createChartOnSheet(sheet, 2, downsampledColumn + 2, select(stats.minutes, minutePoints), downsampledColumn + 3, select(stats.levelDifferences, minutePoints), "Time (minutes)", "Level Difference");
+        } else if (stats.minutes.length > 1) {
+            createChartOnSheet(sheet, 2, 2, stats.minutes, 3, stats.levelDifferences, "Time (minutes)", "Level Difference");
+        }
+    }
+
+    private static double[] select(double[] values, int[] indices) {
+        double[] selected = new double[indices.length];
+        for (int i=0; i<indices.length; i++) {
+            selected[i] = values[indices[i]];
         }
+        return selected;
     }
 
-    private static String createSheetName(Recording recording, XSSFWorkbook wb, int recordingNumber) {
+    private static String createSheetName(Recording recording, Workbook wb, int recordingNumber) {
         String sheetName = !recording.getName().isEmpty() ? recording.getName() : "Sheet " + (recordingNumber+2);
         sheetName = WorkbookUtil.createSafeSheetName(sheetName);
         int copyNumber = 1;
@@ -127,84 +434,115 @@ public class LevelingDataParser {
         return sheetName;
     }
 
-    private static void createSummarySheet(LevelingSession session, XSSFWorkbook wb) {
-        XSSFSheet sheet = wb.createSheet("Summary");
+    private static void createSummarySheet(LevelingSession session, LevelingAnalytics.RecordingStats[] stats, Workbook wb) {
+        Sheet sheet = wb.createSheet("Summary");
+        int[] textWidths = new int[8];
+        DataFormatter formatter = new DataFormatter();
         Row row = sheet.createRow(1);
-        row.createCell(1).setCellValue("Login:");
-        row.createCell(2).setCellValue(new SimpleDateFormat("MM/dd/yy HH:mm:ss").format(session.loginTime));
+        setSummaryCell(row, 1, "Login:", textWidths);
+        setSummaryCell(row, 2, new SimpleDateFormat("MM/dd/yy HH:mm:ss").format(session.loginTime), textWidths);
         row = sheet.createRow(2);
-        row.createCell(1).setCellValue("Logout:");
+        setSummaryCell(row, 1, "Logout:", textWidths);
         if (session.logoutTime != null) {
-            row.createCell(2).setCellValue(new SimpleDateFormat("MM/dd/yy HH:mm:ss").format(session.logoutTime));
+            setSummaryCell(row, 2, new SimpleDateFormat("MM/dd/yy HH:mm:ss").format(session.logoutTime), textWidths);
         } else {
-            row.createCell(2).setCellValue("In Progress");
+            setSummaryCell(row, 2, "In Progress", textWidths);
         }
         row = sheet.createRow(4);
-        row.createCell(1).setCellValue("Recordings");
+        setSummaryCell(row, 1, "Recordings", textWidths);
         for (int i=0; i<session.recordings.length; i++) {
             Recording recording = session.recordings[i];
+            LevelingAnalytics.RecordingStats recordingStats = stats[i];
             row = sheet.createRow(6 + i * 5);
-            row.createCell(2).setCellValue("Name:");
-            row.createCell(3).setCellValue(recording.name);
-            row.createCell(6).setCellValue("XP:");
-            int xpGain = getXPGain(recording);
-            row.createCell(7).setCellValue(xpGain);
+            setSummaryCell(row, 2, "Name:", textWidths);
+            setSummaryCell(row, 3, recording.name, textWidths);
+            setSummaryCell(row, 6, "XP:", textWidths);
+            setSummaryCell(row, 7, recordingStats.xpGain, formatter, textWidths);
             row = sheet.createRow(7 + i * 5);
-            row.createCell(2).setCellValue("Duration(minutes):");
-            double duration;
-            if (recording.stopTime != null) {
-                duration = (recording.stopTime.getTime() - recording.startTime.getTime()) / 1000.0 / 60.0;
-            } else {
-                duration = recording.snapshots.length * 5 / 60.0;
-            }
-            row.createCell(3).setCellValue(duration);
-            row.createCell(6).setCellValue("%XP:");
-            double percentXPGain = (recording.snapshots[recording.snapshots.length-1] - recording.characterLevel) * 100;
-            row.createCell(7).setCellValue(percentXPGain);
+            setSummaryCell(row, 2, "Duration(minutes):", textWidths);
+            setSummaryCell(row, 3, recordingStats.durationMinutes, formatter, textWidths);
+            setSummaryCell(row, 6, "%XP:", textWidths);
+            setSummaryCell(row, 7, recordingStats.percentXPGain, formatter, textWidths);
             row = sheet.createRow(8 + i * 5);
-            row.createCell(2).setCellValue("Start Level:");
-            row.createCell(3).setCellValue(recording.characterLevel);
-            row.createCell(6).setCellValue("XP/minute:");
-            row.createCell(7).setCellValue(xpGain / duration);
+            setSummaryCell(row, 2, "Start Level:", textWidths);
+            setSummaryCell(row, 3, recording.characterLevel, formatter, textWidths);
+            setSummaryCell(row, 6, "XP/minute:", textWidths);
+            setSummaryCell(row, 7, recordingStats.xpPerMinute(), formatter, textWidths);
             row = sheet.createRow(9 + i * 5);
-            row.createCell(2).setCellValue("Stop Level:");
-            row.createCell(3).setCellValue(recording.snapshots[recording.snapshots.length-1]);
-            row.createCell(6).setCellValue("%XP/minute:");
-            row.createCell(7).setCellValue(percentXPGain / duration);
-        }
-        sheet.autoSizeColumn(1);
-        sheet.autoSizeColumn(2);
-        sheet.autoSizeColumn(3);
-        sheet.autoSizeColumn(6);
-        sheet.autoSizeColumn(7);
+            setSummaryCell(row, 2, "Stop Level:", textWidths);
+            setSummaryCell(row, 3, recordingStats.stopLevel, formatter, textWidths);
+            setSummaryCell(row, 6, "%XP/minute:", textWidths);
+            setSummaryCell(row, 7, recordingStats.percentXPPerMinute(), formatter, textWidths);
+        }
+        sizeColumns(sheet, summaryColumns, textWidths);
     }
 
-    private static int getXPGain(Recording recording) {
-        double startLevelXP = recording.characterLevel;
-        double stopLevelXP = recording.snapshots[recording.snapshots.length-1];
-        int startLevel = (int)Math.floor(startLevelXP);
-        int stopLevel = (int)Math.floor(stopLevelXP);
-        if (startLevel == stopLevel) {
-            return (int)((stopLevelXP - startLevelXP) * xpPerLevel.get(startLevel));
-        } else {
-            int sum = xpPerLevel.get(startLevel) - (int)((startLevelXP - startLevel) * xpPerLevel.get(startLevel));
-            for (int i=startLevel+1; i<=stopLevel; i++) {
-                if (i == stopLevel) {
-                    sum += (int)((stopLevelXP - stopLevel) * xpPerLevel.get(i));
-                } else {
-                    sum += xpPerLevel.get(i);
-                }
+    // The hourly rates get their own sheet after the recordings so the Summary and recording sheets keep their original layout.
+    private static void createRatesSheet(LevelingSession session, LevelingAnalytics.RecordingStats[] stats, Workbook wb) {
+        String sheetName = "XP Rates";
+        for (int copyNumber=1; wb.getSheet(sheetName) != null; copyNumber++) {
+            sheetName = "XP Rates (" + copyNumber + ")";
+        }
+        Sheet sheet = wb.createSheet(sheetName);
+        DataFormatter formatter = new DataFormatter();
+        int[] textWidths = new int[rateColumns.length];
+        Row row = sheet.createRow(0);
+        setSummaryCell(row, 0, "Name", textWidths);
+        setSummaryCell(row, 1, "XP/hour", textWidths);
+        setSummaryCell(row, 2, "Slow " + rateWindowMinutes + "m XP/hour", textWidths);
+        setSummaryCell(row, 3, "Median " + rateWindowMinutes + "m XP/hour", textWidths);
+        setSummaryCell(row, 4, "Fast " + rateWindowMinutes + "m XP/hour", textWidths);
+        for (int i=0; i<session.recordings.length; i++) {
+            row = sheet.createRow(1 + i);
+            setSummaryCell(row, 0, session.recordings[i].name, textWidths);
+            setSummaryCell(row, 1, stats[i].xpPerHour(), formatter, textWidths);
+            setSummaryCell(row, 2, stats[i].lowXpPerHour, formatter, textWidths);
+            setSummaryCell(row, 3, stats[i].medianXpPerHour, formatter, textWidths);
+            setSummaryCell(row, 4, stats[i].highXpPerHour, formatter, textWidths);
+        }
+        sizeColumns(sheet, rateColumns, textWidths);
+    }
+
+    private static void sizeColumns(Sheet sheet, int[] columns, int[] textWidths) {
+        for (int column : columns) {
+            if (sheet instanceof SXSSFSheet) {
+                // autoSizeColumn needs every row in memory and lays out each cell with AWT fonts.
+                sheet.setColumnWidth(column, Math.min(255, textWidths[column] + 1) * 256);
+            } else {
+                sheet.autoSizeColumn(column);
             }
-            return sum;
         }
     }
 
-    private static void createChartOnSheet(XSSFSheet sheet, int rows, int chartNumber, int xCol, int yCol, String bottomTitle, String leftTitle) {
-        XSSFDrawing drawing = sheet.createDrawingPatriarch();
+    private static void setSummaryCell(Row row, int column, String value, int[] textWidths) {
+        row.createCell(column).setCellValue(value);
+        if (value != null) {
+            textWidths[column] = Math.max(textWidths[column], value.length());
+        }
+    }
+
+    private static void setSummaryCell(Row row, int column, double value, DataFormatter formatter, int[] textWidths) {
+        row.createCell(column).setCellValue(value);
+        textWidths[column] = Math.max(textWidths[column], formatter.formatRawCellContents(value, 0, "General").length());
+    }
+
+    private static void createChartOnSheet(Sheet sheet, int chartNumber, int xCol, double[] xValues, int yCol, double[] yValues, String bottomTitle, String leftTitle) {
+        XSSFSheet chartSheet = sheet instanceof SXSSFSheet
+                ? ((SXSSFWorkbook) sheet.getWorkbook()).getXSSFWorkbook().getSheet(sheet.getSheetName())
+                : (XSSFSheet) sheet;
+        if (xCol >= downsampledColumn) {
+            chartSheet.setColumnHidden(xCol, true);
+            chartSheet.setColumnHidden(yCol, true);
+        }
+        XSSFDrawing drawing = chartSheet.createDrawingPatriarch();
         XSSFClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 4, 1 + (chartNumber-1) * 56, 38, 55 + (chartNumber-1) * 56);
 
         XSSFChart chart = drawing.createChart(anchor);
         chart.setTitleText(sheet.getSheetName());
+        if (xCol >= downsampledColumn) {
+            // Excel leaves hidden columns out of charts unless told otherwise.
+            chart.getCTChart().getPlotVisOnly().setVal(false);
+        }
         XDDFValueAxis bottomAxis = chart.createValueAxis(org.apache.poi.xddf.usermodel.chart.AxisPosition.BOTTOM);
         XDDFValueAxis leftAxis = chart.createValueAxis(org.apache.poi.xddf.usermodel.chart.AxisPosition.LEFT);
 
@@ -212,8 +550,9 @@ public class LevelingDataParser {
         leftAxis.setTitle(leftTitle);
         leftAxis.setCrosses(AxisCrosses.AUTO_ZERO);
 
-        XDDFNumericalDataSource<Double> xs = XDDFDataSourcesFactory.fromNumericCellRange(sheet, new CellRangeAddress(0, rows, xCol, xCol));
-        XDDFNumericalDataSource<Double> ys = XDDFDataSourcesFactory.fromNumericCellRange(sheet, new CellRangeAddress(0, rows, yCol, yCol));
+        // Series values are cached from the arrays rather than read back from cells, which a streaming sheet may already have flushed.
+        XDDFNumericalDataSource<Double> xs = XDDFDataSourcesFactory.fromArray(boxed(xValues), new CellRangeAddress(0, xValues.length-1, xCol, xCol).formatAsString(sheet.getSheetName(), true));
+        XDDFNumericalDataSource<Double> ys = XDDFDataSourcesFactory.fromArray(boxed(yValues), new CellRangeAddress(0, yValues.length-1, yCol, yCol).formatAsString(sheet.getSheetName(), true));
         XDDFScatterChartData data = (XDDFScatterChartData) chart.createData(ChartTypes.SCATTER, bottomAxis, leftAxis);
         XDDFScatterChartData.Series series1 = (XDDFScatterChartData.Series) data.addSeries(xs, ys);
         series1.setSmooth(false);
@@ -226,6 +565,14 @@ public class LevelingDataParser {
         chart.plot(data);
     }
 
+    private static Double[] boxed(double[] values) {
+        Double[] boxed = new Double[values.length];
+        for (int i=0; i<values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
     static class LevelingSession {
         @JsonFormat (shape = JsonFormat.Shape.STRING, pattern = "MM/dd/yy HH:mm:ss" )
         Date loginTime;
@@ -266,7 +613,7 @@ public class LevelingDataParser {
         String name;
         int startGetTime;
         double characterLevel;
-        Double[] snapshots;
+        SnapshotSeries snapshots;
 
         public Date getStartTime() {
             return startTime;
@@ -308,11 +655,11 @@ public class LevelingDataParser {
             this.characterLevel = characterLevel;
         }
 
-        public Double[] getSnapshots() {
+        public SnapshotSeries getSnapshots() {
             return snapshots;
         }
 
-        public void setSnapshots(Double[] snapshots) {
+        public void setSnapshots(SnapshotSeries snapshots) {
             this.snapshots = snapshots;
         }
     }
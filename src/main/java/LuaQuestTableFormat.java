@@ -0,0 +1,193 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class LuaQuestTableFormat implements QuestTableFormat {
+
+    private static final Pattern questEntry = Pattern.compile("^\\s*\\[(\\d+)\\] = \"((?:[^\"\\\\]|\\\\.)*)\",$");
+    private static final Pattern itemStart = Pattern.compile("^\\s*\\[(\\d+)\\] = \\{$");
+    private static final Pattern itemField = Pattern.compile("^\\s*\\[\"(\\w+)\"\\] = (-?\\d+|nil),?$");
+
+    @Override
+    public String defaultFileName() {
+        return "questIDToName.txt";
+    }
+
+    @Override
+    public void write(QuestTables tables, Path file) throws IOException {
+        try (FileChannel channel = QuestTableFormat.openForWrite(file);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            writeQuestIDToName(tables.quests, writer);
+            writer.write("\r\n");
+            writeQuestNames(tables.quests, writer);
+            writer.write("\r\n");
+            writeQuestItems(tables.questItems, writer);
+        }
+    }
+
+    private static void writeQuestIDToName(Map<Integer, String> quests, Writer writer) throws IOException {
+        writer.write("addonTable.questIDToName = {\r\n");
+        for (Map.Entry<Integer, String> entry : new TreeMap<>(quests).entrySet()) {
+            writer.append("    [").append(entry.getKey().toString()).append("] = \"").append(luaEscape(entry.getValue().toLowerCase())).append("\",\r\n");
+        }
+        writer.write("}\r\n");
+    }
+
+    private static void writeQuestNames(Map<Integer, String> quests, Writer writer) throws IOException {
+        writer.write("addonTable.questNames = {\r\n");
+        for (String name : QuestTableFormat.questNames(quests)) {
+            writer.append("    [\"").append(luaEscape(name)).append("\"] = true,\r\n");
+        }
+        writer.write("}\r\n");
+    }
+
+    private static void writeQuestItems(Map<Integer, Map<String, Integer>> questItems, Writer writer) throws IOException {
+        writer.write("addonTable.questItems = {\r\n");
+        for (Map.Entry<Integer, Map<String, Integer>> entry : new TreeMap<>(questItems).entrySet()) {
+            writer.append("    [").append(entry.getKey().toString()).append("] = {\r\n");
+            writer.write("        [\"count\"] = 0,\r\n");
+            writer.append("        [\"spellID\"] = ").append(String.valueOf(entry.getValue().get("spellID"))).append(",\r\n");
+            Integer cooldown = entry.getValue().get("cooldown");
+            writer.append("        [\"cooldown\"] = ").append(cooldown != null ? cooldown.toString() : "nil").append("\r\n");
+            writer.write("    },\r\n");
+        }
+        writer.write("}\r\n");
+    }
+
+    // Names are JSON-unescaped from the listing, so they can hold quotes, backslashes and control characters.
+    static String luaEscape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i=0; i<value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        escaped.append(String.format("\\%03d", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String luaUnescape(String value) {
+        if (value.indexOf('\\') == -1) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i=0; i<value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'a':
+                    unescaped.append('\u0007');
+                    break;
+                case 'b':
+                    unescaped.append('\b');
+                    break;
+                case 'f':
+                    unescaped.append('\f');
+                    break;
+                case 'v':
+                    unescaped.append('\u000b');
+                    break;
+                default:
+                    if (Character.isDigit(next)) {
+                        int end = i;
+                        while (end < value.length() && end < i + 3 && Character.isDigit(value.charAt(end))) {
+                            end++;
+                        }
+                        unescaped.append((char) Integer.parseInt(value.substring(i, end)));
+                        i = end - 1;
+                    } else {
+                        unescaped.append(next);
+                    }
+            }
+        }
+        return unescaped.toString();
+    }
+
+    @Override
+    public QuestTables read(Path file) throws IOException {
+        Map<Integer, String> quests = new ConcurrentHashMap<>();
+        Map<Integer, Map<String, Integer>> questItems = new ConcurrentHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String table = null;
+            Integer itemId = null;
+            Map<String, Integer> itemData = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("addonTable.")) {
+                    table = line.substring("addonTable.".length(), line.indexOf(' '));
+                    continue;
+                }
+                if ("questIDToName".equals(table)) {
+                    Matcher m = questEntry.matcher(line);
+                    if (m.matches()) {
+                        quests.put(Integer.parseInt(m.group(1)), luaUnescape(m.group(2)));
+                    }
+                } else if ("questItems".equals(table)) {
+                    Matcher m = itemStart.matcher(line);
+                    if (m.matches()) {
+                        itemId = Integer.parseInt(m.group(1));
+                        itemData = new HashMap<>();
+                        continue;
+                    }
+                    m = itemField.matcher(line);
+                    if (itemId != null && m.matches()) {
+                        if (!m.group(2).equals("nil") && !m.group(1).equals("count")) {
+                            itemData.put(m.group(1), Integer.parseInt(m.group(2)));
+                        }
+                    } else if (itemId != null && line.strip().startsWith("}")) {
+                        if (itemData.containsKey("spellID")) {
+                            questItems.put(itemId, itemData);
+                        }
+                        itemId = null;
+                    }
+                }
+            }
+        }
+        return new QuestTables(quests, questItems, Files.getLastModifiedTime(file).toMillis());
+    }
+}
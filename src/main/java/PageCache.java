@@ -0,0 +1,181 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Properties;
+
+class PageCache {
+
+    private final Path indexDir;
+    private final Path blobDir;
+
+    PageCache(Path cacheDir) throws IOException {
+        this.indexDir = Files.createDirectories(cacheDir.resolve("index"));
+        this.blobDir = Files.createDirectories(cacheDir.resolve("blobs"));
+    }
+
+    Entry lookup(String url) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(indexDir.resolve(Hashing.sha256(url.getBytes(StandardCharsets.UTF_8))))) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Entry entry = new Entry(url, properties.getProperty("contentHash"), properties.getProperty("charset"),
+                properties.getProperty("etag"), properties.getProperty("lastModified"),
+                Long.parseLong(properties.getProperty("fetchedAt", "0")));
+        if (entry.contentHash == null || !Files.exists(blobDir.resolve(entry.contentHash))) {
+            return null;
+        }
+        return entry;
+    }
+
+    byte[] readBody(Entry entry) throws IOException {
+        return Files.readAllBytes(blobDir.resolve(entry.contentHash));
+    }
+
+    InputStream openBody(Entry entry) throws IOException {
+        return new BufferedInputStream(Files.newInputStream(blobDir.resolve(entry.contentHash)));
+    }
+
+    InputStream storeWhileReading(String url, InputStream body, String charset, String etag, String lastModified) throws IOException {
+        Path temp = Files.createTempFile(blobDir, "blob", ".tmp");
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp));
+        MessageDigest digest = Hashing.newSha256();
+        return new FilterInputStream(body) {
+            private boolean complete;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b == -1) {
+                    complete = true;
+                } else {
+                    out.write(b);
+                    digest.update((byte) b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n == -1) {
+                    complete = true;
+                } else {
+                    out.write(buffer, offset, n);
+                    digest.update(buffer, offset, n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                int read = read(buffer, 0, buffer.length);
+                return Math.max(read, 0);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    try {
+                        super.close();
+                    } finally {
+                        out.close();
+                    }
+                    if (complete) {
+                        String contentHash = Hashing.hex(digest.digest());
+                        Path blob = blobDir.resolve(contentHash);
+                        if (!Files.exists(blob)) {
+                            Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        }
+                        writeIndex(new Entry(url, contentHash, charset, etag, lastModified, System.currentTimeMillis()));
+                    }
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        };
+    }
+
+    Entry store(String url, byte[] body, String charset, String etag, String lastModified) throws IOException {
+        String contentHash = Hashing.sha256(body);
+        Path blob = blobDir.resolve(contentHash);
+        if (!Files.exists(blob)) {
+            writeAtomically(blob, body);
+        }
+        Entry entry = new Entry(url, contentHash, charset, etag, lastModified, System.currentTimeMillis());
+        writeIndex(entry);
+        return entry;
+    }
+
+    Entry touch(Entry entry) throws IOException {
+        Entry touched = new Entry(entry.url, entry.contentHash, entry.charset, entry.etag, entry.lastModified, System.currentTimeMillis());
+        writeIndex(touched);
+        return touched;
+    }
+
+    private void writeIndex(Entry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("url", entry.url);
+        properties.setProperty("contentHash", entry.contentHash);
+        properties.setProperty("fetchedAt", Long.toString(entry.fetchedAt));
+        if (entry.charset != null) {
+            properties.setProperty("charset", entry.charset);
+        }
+        if (entry.etag != null) {
+            properties.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            properties.setProperty("lastModified", entry.lastModified);
+        }
+        Path index = indexDir.resolve(Hashing.sha256(entry.url.getBytes(StandardCharsets.UTF_8)));
+        Path temp = Files.createTempFile(indexDir, "index", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, null);
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "blob", ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static class Entry {
+        final String url;
+        final String contentHash;
+        final String charset;
+        final String etag;
+        final String lastModified;
+        final long fetchedAt;
+
+        Entry(String url, String contentHash, String charset, String etag, String lastModified, long fetchedAt) {
+            this.url = url;
+            this.contentHash = contentHash;
+            this.charset = charset;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isFresh(long ttlMillis) {
+            return System.currentTimeMillis() - fetchedAt < ttlMillis;
+        }
+    }
+}
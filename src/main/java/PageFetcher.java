@@ -0,0 +1,18 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+interface PageFetcher {
+    String fetch(String url) throws IOException;
+
+    default String fetchFromCache(String url) throws IOException {
+        return null;
+    }
+
+    default InputStream openStream(String url) throws IOException {
+        return null;
+    }
+
+    default InputStream openStreamFromCache(String url) throws IOException {
+        return null;
+    }
+}
@@ -1,144 +1,319 @@
-import org.jsoup.Jsoup;
-
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 public class QuestDataScraper {
+
+    private static final String wowheadUrl = "https://shadowlands.wowhead.com";
+    private static final int crawlConcurrency = Integer.getInteger("scraper.concurrency", 8);
+    private static final long minRequestIntervalMillis = Long.getLong("scraper.requestIntervalMillis", 100);
+    private static final int maxRetries = Integer.getInteger("scraper.maxRetries", 3);
+    private static final long retryBackoffMillis = Long.getLong("scraper.retryBackoffMillis", 1000);
+    private static final String pageCacheDir = System.getProperty("scraper.cacheDir", ".pagecache");
+    private static final long pageCacheTtlMillis = TimeUnit.HOURS.toMillis(Long.getLong("scraper.cacheTtlHours", 168));
+    private static final boolean offline = Boolean.getBoolean("scraper.offline");
+    private static final String itemClassificationFile = System.getProperty("scraper.itemCache", "itemClassifications.json");
+    private static final long itemClassificationMaxAgeMillis = TimeUnit.HOURS.toMillis(Long.getLong("scraper.itemCacheTtlHours", 168));
+    private static final String rulesFile = System.getProperty("scraper.rules");
+    private static final List<QuestTableFormat> outputFormats = Arrays.stream(System.getProperty("scraper.outputFormats", "lua").split(","))
+            .map(QuestTableFormat::forName).collect(Collectors.toList());
+    private static final String journalFile = System.getProperty("scraper.journal", "scrape.journal");
+    private static final boolean incremental = Boolean.getBoolean("scraper.incremental");
+    private static final long questMaxAgeMillis = TimeUnit.HOURS.toMillis(Long.getLong("scraper.questMaxAgeHours", 168));
+    private static final boolean streamQuestPages = Boolean.parseBoolean(System.getProperty("scraper.streaming", "true"));
+    private static final String metricsReportFile = System.getProperty("scraper.metricsReport", "scrapeMetrics.json");
+
+    static final Pattern questListingPattern = Pattern.compile("\\{\"category\":-?\\d+,(\"category2\":-?\\d+,)?(\"currencyrewards\":\\[\\[.*?\\]\\],)?(\"daily\":\\d+,)?\"id\":(\\d+).*?\"name\":\"(.*?)\"");
+    private static final Pattern questItemPattern = Pattern.compile("(item=(\\d+))|(g_items.createIcon\\((\\d+))");
+    private static final Pattern spellPattern = Pattern.compile("spell=(\\d+)");
+    private static final Pattern cooldownPattern = Pattern.compile("(\\d+)(?= Sec Cooldown)");
+
     public static void main(String[] args) {
-        Map<Integer, String> quests = new HashMap<>();
-        Map<Integer, Map<String, Integer>> questItems = new HashMap<>();
-        try {
-            for (int i=50; i<=59; i++) {
-                String webPage = String.format("https://shadowlands.wowhead.com/quests/min-level:%d/max-level:%d?filter=35;9;0", i, i);
-                String html = Jsoup.connect(webPage).get().html();
-                String pattern = "\\{\"category\":-?\\d+,(\"category2\":-?\\d+,)?(\"currencyrewards\":\\[\\[.*?\\]\\],)?(\"daily\":\\d+,)?\"id\":(\\d+).*?\"name\":\"(.*?)\"";
-                collectQuestData(quests, html, pattern);
-            }
-            for (Map.Entry<Integer, String> entry : quests.entrySet()) {
-                String webPage = String.format("https://shadowlands.wowhead.com/quest=%d", entry.getKey());
-                String html = Jsoup.connect(webPage).get().html();
-                String pattern = "(item=(\\d+))|(g_items.createIcon\\((\\d+))";
-                collectQuestItemData(questItems, html, pattern, webPage);
-            }
-            writeQuestInfoToFile(quests, questItems);
+        String baseUrl = args.length > 0 ? args[0] : wowheadUrl;
+        RunMetrics metrics = new RunMetrics("QuestDataScraper");
+        RunMetrics.Timer setupTimer = metrics.phase("load caches").time();
+        try (ScrapeJournal journal = ScrapeJournal.open(Path.of(journalFile))) {
+            PageFetcher fetcher;
+            ScraperRules rules;
+            ItemClassificationCache itemCache;
+            QuestTables existing;
+            long freshAfter;
+            try {
+                fetcher = new CachingPageFetcher(new PageCache(Path.of(pageCacheDir)), pageCacheTtlMillis, offline, metrics);
+                rules = ScraperRules.load(rulesFile);
+                itemCache = ItemClassificationCache.load(Path.of(itemClassificationFile), rules.fingerprint, itemClassificationMaxAgeMillis);
+                if (journal.isResuming()) {
+                    System.out.printf("Resuming interrupted run started %s%n", new Date(journal.getRunStart()));
+                }
+                if (!journal.getPreviousFailures().isEmpty()) {
+                    System.out.printf("Retrying %d URLs that failed in the previous run%n", journal.getPreviousFailures().size());
+                }
+                QuestTableFormat primaryFormat = outputFormats.get(0);
+                Path questTableFile = Path.of(primaryFormat.defaultFileName());
+                existing = incremental && Files.exists(questTableFile) ? primaryFormat.read(questTableFile) : QuestTables.empty();
+                freshAfter = incremental ? System.currentTimeMillis() - questMaxAgeMillis : journal.getRunStart();
+            } finally {
+                setupTimer.close();
+            }
+            QuestTables tables;
+            try (CrawlEngine engine = new CrawlEngine(fetcher, crawlConcurrency, minRequestIntervalMillis, maxRetries, retryBackoffMillis, metrics)) {
+                tables = scrape(engine, baseUrl, rules, itemCache, journal, existing, freshAfter, metrics);
+            } finally {
+                itemCache.save();
+            }
+            writeQuestInfoToFile(tables, metrics);
+            journal.complete();
+            if (!journal.getFailures().isEmpty()) {
+                System.out.printf("%d URLs failed and will be retried on the next run%n", journal.getFailures().size());
+            }
+            metrics.count("item classification cache hits", itemCache.getHits());
+            metrics.count("item classification cache misses", itemCache.getMisses());
+            long pageCacheHits = metrics.counter("page cache hits");
+            long pageRequests = pageCacheHits + metrics.counter("page cache revalidations") + metrics.counter("page cache misses");
+            if (pageRequests > 0) {
+                metrics.gauge("page cache hit %", 100.0 * pageCacheHits / pageRequests);
+            }
+            if (itemCache.getHits() + itemCache.getMisses() > 0) {
+                metrics.gauge("item cache hit %", 100.0 * itemCache.getHits() / (itemCache.getHits() + itemCache.getMisses()));
+            }
+            metrics.printSummary();
+            metrics.writeReport(Path.of(metricsReportFile));
         } catch (IOException e) {
-            System.out.println(e.getStackTrace());
+            e.printStackTrace();
         }
     }
 
-    private static void collectQuestData(Map<Integer, String> quests, String html, String pattern) {
-        Matcher m = Pattern.compile(pattern).matcher(html);
-        while (m.find()) {
-            if (isLevelingQuest(m)) {
-                quests.put(Integer.parseInt(m.group(4)), m.group(5));
+    static QuestTables scrape(CrawlEngine engine, String baseUrl, ScraperRules rules, ItemClassificationCache itemCache,
+                              ScrapeJournal journal, QuestTables existing, long freshAfter, RunMetrics metrics) throws IOException {
+        QuestTables tables = new QuestTables(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), System.currentTimeMillis());
+        List<Integer> levels = IntStream.rangeClosed(50, 59).boxed().collect(Collectors.toList());
+        Set<Integer> failedLevels = crawl("listing", engine, journal, metrics, levels, level -> String.format("%s/quests/min-level:%d/max-level:%d?filter=35;9;0", baseUrl, level, level),
+                (level, html) -> collectQuestData(tables.quests, html, rules));
+        if (!failedLevels.isEmpty()) {
+            existing.quests.forEach(tables.quests::putIfAbsent);
+        }
+
+        // Only the journal knows when each quest page was actually fetched; pages that failed last run are always fetched again.
+        Set<Integer> itemIds = ConcurrentHashMap.newKeySet();
+        List<Integer> staleQuestIds = new ArrayList<>();
+        Function<Integer, String> questUrl = questId -> String.format("%s/quest=%d", baseUrl, questId);
+        Map<String, String> previousFailures = journal.getPreviousFailures();
+        for (Integer questId : tables.quests.keySet()) {
+            ScrapeJournal.QuestRecord record = journal.getQuest(questId);
+            if (record == null || record.fetchedAt < freshAfter || previousFailures.containsKey(questUrl.apply(questId))) {
+                staleQuestIds.add(questId);
+            } else {
+                itemIds.addAll(record.itemIds);
             }
         }
+        System.out.printf("Fetching %d of %d quest pages%n", staleQuestIds.size(), tables.quests.size());
+        CrawlEngine.PageHandler<Integer> questPageHandler = (questId, html) -> {
+            Set<Integer> questItemIds = new HashSet<>();
+            collectQuestItemIds(questItemIds, html);
+            journal.recordQuest(questId, questItemIds);
+            itemIds.addAll(questItemIds);
+        };
+        Set<Integer> failedQuestIds;
+        if (streamQuestPages) {
+            failedQuestIds = crawlStreaming("quest", engine, journal, metrics, staleQuestIds, questUrl, (questId, body) -> {
+                Set<Integer> questItemIds = new HashSet<>();
+                new QuestItemIdScanner(questItemIds).scan(body);
+                journal.recordQuest(questId, questItemIds);
+                itemIds.addAll(questItemIds);
+            }, questPageHandler);
+        } else {
+            failedQuestIds = crawl("quest", engine, journal, metrics, staleQuestIds, questUrl, questPageHandler);
+        }
+        // A quest page that failed this run keeps the items its last successful fetch listed.
+        for (Integer questId : failedQuestIds) {
+            ScrapeJournal.QuestRecord record = journal.getQuest(questId);
+            if (record != null) {
+                itemIds.addAll(record.itemIds);
+            }
+        }
+
+        List<Integer> unclassifiedItemIds = new ArrayList<>();
+        Function<Integer, String> itemUrl = itemId -> String.format("%s/item=%d", baseUrl, itemId);
+        for (Integer itemId : itemIds) {
+            ItemClassification classification = previousFailures.containsKey(itemUrl.apply(itemId)) ? null : itemCache.get(itemId);
+            if (classification == null) {
+                unclassifiedItemIds.add(itemId);
+            } else {
+                collectQuestItemData(tables.questItems, itemId, classification);
+            }
+        }
+        Set<Integer> failedItemIds = crawl("item", engine, journal, metrics, unclassifiedItemIds, itemUrl, (itemId, itemHtml) -> {
+            ItemClassification classification = classifyItem(itemHtml, rules);
+            itemCache.put(itemId, classification);
+            collectQuestItemData(tables.questItems, itemId, classification);
+        });
+        // Items are rebuilt from scratch like quests, so only one whose page failed this run falls back to its previous entry.
+        for (Integer itemId : failedItemIds) {
+            Map<String, Integer> previous = existing.questItems.get(itemId);
+            if (previous != null) {
+                tables.questItems.put(itemId, previous);
+            }
+        }
+        return tables;
     }
 
-    private static boolean isLevelingQuest(Matcher m) {
-        String questName = m.group(5).toLowerCase();
-        if (questName.contains("deprecated") || questName.contains("unused") || questName.contains("dnt")
-        || questName.contains("old not used") || questName.contains("shadowlands (51-59) e") || questName.contains("reuse me")
-        || questName.contains("nyi") || questName.contains("professions - reuse") || questName.contains("tbd")) {
-            return false;
+    // Each kind of page gets a phase timing the whole crawl and a histogram of time spent parsing single pages.
+    private static <T> Set<T> crawl(String kind, CrawlEngine engine, ScrapeJournal journal, RunMetrics metrics, Collection<T> targets,
+                                    Function<T, String> urlFor, CrawlEngine.PageHandler<T> handler) throws IOException {
+        RunMetrics.Phase phase = metrics.phase(kind + " pages");
+        RunMetrics.Histogram parsing = metrics.histogram(kind + " parsing");
+        CrawlEngine.PageHandler<T> recordingHandler = (target, html) -> {
+            RunMetrics.Timer timer = parsing.time();
+            try {
+                handler.handle(target, html);
+            } finally {
+                timer.close();
+            }
+            journal.recordSuccess(urlFor.apply(target));
+            phase.addItems(1);
+        };
+        RunMetrics.Timer timer = phase.time();
+        try {
+            return recordFailures(journal, urlFor, engine.crawl(kind, targets, urlFor, recordingHandler));
+        } finally {
+            timer.close();
         }
-        return true;
     }
 
-    private static void collectQuestItemData(Map<Integer, Map<String, Integer>> questItems, String html, String pattern, String oldWebPage) throws IOException {
-        Matcher m = Pattern.compile(pattern).matcher(html);
-        Set<Integer> itemIds = new HashSet<>();
-        while (m.find()) {
-            for (int i=2; i<=4; i+=2) {
-                if (m.group(i) != null) {
-                    itemIds.add(Integer.parseInt(m.group(i)));
-                }
+    // Streamed pages are scanned as they download, so their parsing time overlaps the request latency.
+    private static <T> Set<T> crawlStreaming(String kind, CrawlEngine engine, ScrapeJournal journal, RunMetrics metrics, Collection<T> targets,
+                                             Function<T, String> urlFor, CrawlEngine.StreamHandler<T> streamHandler,
+                                             CrawlEngine.PageHandler<T> fallback) throws IOException {
+        RunMetrics.Phase phase = metrics.phase(kind + " pages");
+        RunMetrics.Histogram parsing = metrics.histogram(kind + " parsing");
+        CrawlEngine.StreamHandler<T> recordingStreamHandler = (target, body) -> {
+            RunMetrics.Timer timer = parsing.time();
+            try {
+                streamHandler.handle(target, body);
+            } finally {
+                timer.close();
             }
+            journal.recordSuccess(urlFor.apply(target));
+            phase.addItems(1);
+        };
+        CrawlEngine.PageHandler<T> recordingFallback = (target, html) -> {
+            RunMetrics.Timer timer = parsing.time();
+            try {
+                fallback.handle(target, html);
+            } finally {
+                timer.close();
+            }
+            journal.recordSuccess(urlFor.apply(target));
+            phase.addItems(1);
+        };
+        RunMetrics.Timer timer = phase.time();
+        try {
+            return recordFailures(journal, urlFor, engine.crawlStreaming(kind, targets, urlFor, recordingStreamHandler, recordingFallback));
+        } finally {
+            timer.close();
         }
-        for (Integer itemId : itemIds) {
-            String webPage = String.format("https://shadowlands.wowhead.com/item=%d", itemId);
-            String itemHtml = Jsoup.connect(webPage).get().html();
-            if (itemHtml.toLowerCase().contains("cost") || itemHtml.toLowerCase().contains("plagueborn slime")
-                    || itemHtml.toLowerCase().contains("argent dawn valor token")
-                    || itemHtml.toLowerCase().contains("chromie's scroll")
-                    || itemHtml.toLowerCase().contains("brimming stoneborn heart")
-                    || itemHtml.toLowerCase().contains("memory of a vital sacrifice")
-                    || itemHtml.toLowerCase().contains("depleted stoneborn heart")
-                    || itemHtml.toLowerCase().contains("kyrian javelin")) {
-                continue;
-            }
-            Matcher m2 = Pattern.compile("(<h1(.|\\s)+?<\\/noscript>)").matcher(itemHtml);
-            if (m2.find()) {
-                String itemInfo = m2.group(1);
-                if (itemInfo.toLowerCase().contains("toy") || itemInfo.toLowerCase().contains("unique-equipped")
-                        || itemInfo.toLowerCase().contains("mount") || itemInfo.toLowerCase().contains("tabard")
-                        || itemInfo.toLowerCase().contains("sell price")) {
-                    continue;
-                }
-                Matcher m3 = Pattern.compile("spell=(\\d+)").matcher(itemInfo);
-                if (!m3.find()) {
-                    continue;
+    }
+
+    private static <T> Set<T> recordFailures(ScrapeJournal journal, Function<T, String> urlFor, Map<T, IOException> failures) throws IOException {
+        for (Map.Entry<T, IOException> failure : failures.entrySet()) {
+            String url = urlFor.apply(failure.getKey());
+            journal.recordFailure(url, failure.getValue());
+            System.out.println("Failed to fetch " + url + ": " + failure.getValue());
+        }
+        return failures.keySet();
+    }
+
+    static void collectQuestData(Map<Integer, String> quests, String html, ScraperRules rules) {
+        try {
+            for (WowheadExtractor.ListedQuest quest : WowheadExtractor.extractListedQuests(html)) {
+                if (isLevelingQuest(quest.name, rules)) {
+                    quests.put(quest.id, quest.name);
                 }
-                Map<String, Integer> questItemData = new HashMap<>();
-                questItemData.put("spellID", Integer.parseInt(m3.group(1)));
-                Matcher m4 = Pattern.compile("(\\d+)(?= Sec Cooldown)").matcher(itemInfo);
-                if (m4.find()) {
-                    questItemData.put("cooldown", Integer.parseInt(m4.group(1)));
+            }
+        } catch (IOException e) {
+            Matcher m = questListingPattern.matcher(html);
+            while (m.find()) {
+                if (isLevelingQuest(m.group(5), rules)) {
+                    quests.put(Integer.parseInt(m.group(4)), m.group(5));
                 }
-                questItems.put(itemId, questItemData);
-                System.out.println(itemInfo.replaceAll("\\s", ""));
             }
         }
     }
 
+    private static boolean isLevelingQuest(String questName, ScraperRules rules) {
+        return !rules.questNameExclusions.matches(questName);
+    }
 
-    private static void writeQuestInfoToFile(Map<Integer, String> quests, Map<Integer, Map<String, Integer>> questItems) throws IOException {
-        PrintWriter writer = new PrintWriter("questIDToName.txt", "UTF-8");
-        writeQuestIDToName(quests, writer);
-        writer.println();
-        writeQuestNames(quests, writer);
-        writer.println();
-        writeQuestItems(questItems, writer);
-        writer.close();
+    static void collectQuestItemIds(Set<Integer> itemIds, String html) {
+        Matcher m = questItemPattern.matcher(html);
+        while (m.find()) {
+            for (int i=2; i<=4; i+=2) {
+                if (m.group(i) != null) {
+                    itemIds.add(Integer.parseInt(m.group(i)));
+                }
+            }
+        }
     }
 
-    private static void writeQuestIDToName(Map<Integer, String> quests, PrintWriter writer) throws IOException {
-        StringBuilder writeString = new StringBuilder("addonTable.questIDToName = {\r\n");
-        for (Map.Entry<Integer, String> entry : quests.entrySet()) {
-            writeString.append("    [" ).append(entry.getKey()).append("] = \"").append(entry.getValue().toLowerCase()).append("\",\r\n");
+    private static void collectQuestItemData(Map<Integer, Map<String, Integer>> questItems, Integer itemId, ItemClassification classification) {
+        if (!classification.isAccepted()) {
+            return;
         }
-        writeString.append("}");
-        writer.println(writeString);
+        Map<String, Integer> questItemData = new HashMap<>();
+        questItemData.put("spellID", classification.spellID);
+        if (classification.cooldown != null) {
+            questItemData.put("cooldown", classification.cooldown);
+        }
+        questItems.put(itemId, questItemData);
     }
 
-    private static void writeQuestNames(Map<Integer, String> quests, PrintWriter writer) throws IOException {
-        Set<String> questNames = new HashSet<>(quests.values());
-        questNames = questNames.stream().map(String::toLowerCase).collect(Collectors.toSet());
-        StringBuilder writeString = new StringBuilder("addonTable.questNames = {\r\n");
-        questNames.stream().forEach(name->writeString.append("    [\"" ).append(name).append("\"] = true,\r\n"));
-        writeString.append("}");
-        writer.println(writeString);
+    private static ItemClassification classifyItem(String itemHtml, ScraperRules rules) {
+        String pageKeyword = rules.itemPageExclusions.findFirst(itemHtml);
+        if (pageKeyword != null) {
+            return ItemClassification.rejected("page contains \"" + pageKeyword + "\"");
+        }
+        String itemInfo = WowheadExtractor.extractTooltip(itemHtml);
+        if (itemInfo == null) {
+            return ItemClassification.rejected("no tooltip");
+        }
+        String tooltipKeyword = rules.itemTooltipExclusions.findFirst(itemInfo);
+        if (tooltipKeyword != null) {
+            return ItemClassification.rejected("tooltip contains \"" + tooltipKeyword + "\"");
+        }
+        Matcher m3 = spellPattern.matcher(itemInfo);
+        if (!m3.find()) {
+            return ItemClassification.rejected("no spell");
+        }
+        Matcher m4 = cooldownPattern.matcher(itemInfo);
+        Integer cooldown = m4.find() ? Integer.parseInt(m4.group(1)) : null;
+        return ItemClassification.accepted(Integer.parseInt(m3.group(1)), cooldown);
     }
 
-    private static void writeQuestItems(Map<Integer, Map<String, Integer>> questItems, PrintWriter writer) throws IOException {
-        StringBuilder writeString = new StringBuilder("addonTable.questItems = {\r\n");
-        for (Map.Entry<Integer, Map<String, Integer>> entry : questItems.entrySet()) {
-            writeString.append("    [" ).append(entry.getKey()).append("] = {\r\n");
-            writeString.append("        [\"count\"] = 0,\r\n");
-            writeString.append("        [\"spellID\"] = ").append(entry.getValue().get("spellID")).append(",\r\n");
-            Integer cooldown = entry.getValue().get("cooldown");
-            writeString.append("        [\"cooldown\"] = ").append(cooldown != null ? cooldown : "nil").append("\r\n");
-            writeString.append("    },\r\n");
-        }
-        writeString.append("}");
-        writer.println(writeString);
+    private static void writeQuestInfoToFile(QuestTables tables, RunMetrics metrics) throws IOException {
+        for (QuestTableFormat format : outputFormats) {
+            RunMetrics.Timer timer = metrics.phase("write " + format.defaultFileName()).time();
+            try {
+                format.write(tables, Path.of(format.defaultFileName()));
+            } finally {
+                timer.close();
+            }
+        }
     }
 }
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+class QuestItemIdScanner {
+
+    private static final byte[][] prefixes = {
+            "item=".getBytes(StandardCharsets.US_ASCII),
+            "g_items.createIcon(".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private final Set<Integer> itemIds;
+    private final int[] progress = new int[prefixes.length];
+    private int digits = -1;
+    private long value;
+
+    QuestItemIdScanner(Set<Integer> itemIds) {
+        this.itemIds = itemIds;
+    }
+
+    void scan(InputStream body) throws IOException {
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = body.read(buffer)) != -1) {
+            update(buffer, 0, n);
+        }
+        finish();
+    }
+
+    void update(byte[] buffer, int offset, int length) {
+        for (int i=offset; i<offset+length; i++) {
+            accept(buffer[i]);
+        }
+    }
+
+    void finish() {
+        endNumber();
+    }
+
+    private void accept(byte b) {
+        if (digits >= 0) {
+            if (b >= '0' && b <= '9') {
+                value = Math.min(value * 10 + (b - '0'), Integer.MAX_VALUE + 1L);
+                digits++;
+                return;
+            }
+            endNumber();
+        }
+        for (int p=0; p<prefixes.length; p++) {
+            byte[] prefix = prefixes[p];
+            if (b == prefix[progress[p]]) {
+                progress[p]++;
+            } else {
+                progress[p] = b == prefix[0] ? 1 : 0;
+            }
+            if (progress[p] == prefix.length) {
+                for (int q=0; q<progress.length; q++) {
+                    progress[q] = 0;
+                }
+                digits = 0;
+                value = 0;
+                return;
+            }
+        }
+    }
+
+    private void endNumber() {
+        if (digits > 0 && value <= Integer.MAX_VALUE) {
+            itemIds.add((int) value);
+        }
+        digits = -1;
+    }
+}
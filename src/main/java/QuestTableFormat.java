@@ -0,0 +1,41 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+interface QuestTableFormat {
+
+    String defaultFileName();
+
+    void write(QuestTables tables, Path file) throws IOException;
+
+    QuestTables read(Path file) throws IOException;
+
+    static QuestTableFormat forName(String name) {
+        switch (name.strip().toLowerCase()) {
+            case "lua":
+                return new LuaQuestTableFormat();
+            case "json":
+                return new JsonQuestTableFormat();
+            case "binary":
+                return new BinaryQuestTableFormat();
+            default:
+                throw new IllegalArgumentException("Unknown quest table format: " + name);
+        }
+    }
+
+    static FileChannel openForWrite(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    static SortedSet<String> questNames(Map<Integer, String> quests) {
+        SortedSet<String> questNames = new TreeSet<>();
+        for (String name : quests.values()) {
+            questNames.add(name.toLowerCase());
+        }
+        return questNames;
+    }
+}
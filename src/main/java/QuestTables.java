@@ -0,0 +1,18 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class QuestTables {
+    final Map<Integer, String> quests;
+    final Map<Integer, Map<String, Integer>> questItems;
+    final long savedAt;
+
+    QuestTables(Map<Integer, String> quests, Map<Integer, Map<String, Integer>> questItems, long savedAt) {
+        this.quests = quests;
+        this.questItems = questItems;
+        this.savedAt = savedAt;
+    }
+
+    static QuestTables empty() {
+        return new QuestTables(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), 0);
+    }
+}
@@ -0,0 +1,322 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// One summary row per recording across any number of SavedVariables files, persisted so unchanged files are never reparsed,
+// with in-memory indexes so queries and per-route aggregates never touch snapshot data.
+class RecordingStore {
+
+    private static final int magic = 0x4C525331;
+
+    private final Path file;
+    private final String analyticsVersion;
+    private final Map<String, Source> sources;
+
+    private Entry[] entries = new Entry[0];
+    private Map<String, BitSet> byName = Map.of();
+    private Map<Integer, BitSet> byLevel = Map.of();
+    private int[] byStartTime = new int[0];
+    private int[] byXpPerMinute = new int[0];
+    private Map<String, double[]> routeXpPerHour = Map.of();
+
+    private RecordingStore(Path file, String analyticsVersion, Map<String, Source> sources) {
+        this.file = file;
+        this.analyticsVersion = analyticsVersion;
+        this.sources = sources;
+        buildIndexes();
+    }
+
+    static RecordingStore load(Path file, String analyticsVersion) throws IOException {
+        Map<String, Source> sources = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), 1 << 16))) {
+                if (in.readInt() == magic && in.readUTF().equals(analyticsVersion)) {
+                    int sourceCount = in.readInt();
+                    for (int i=0; i<sourceCount; i++) {
+                        Source source = Source.read(in);
+                        sources.put(source.path, source);
+                    }
+                }
+            }
+        }
+        return new RecordingStore(file, analyticsVersion, sources);
+    }
+
+    // Reparses only the files whose size or modification time changed and forgets files that are no longer listed.
+    // Returns how many files were reparsed or forgotten, so the caller knows whether the store needs saving.
+    int refresh(List<Path> files, ObjectMapper mapper, LevelingAnalytics analytics) throws IOException {
+        Map<String, Source> refreshed = new LinkedHashMap<>();
+        int changed = 0;
+        for (Path path : files) {
+            String key = path.toAbsolutePath().toString();
+            long size = Files.size(path);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            Source source = sources.get(key);
+            if (source == null || source.size != size || source.modified != modified) {
+                source = new Source(key, size, modified, readEntries(path, key, mapper, analytics));
+                changed++;
+            }
+            refreshed.put(key, source);
+        }
+        for (String key : sources.keySet()) {
+            if (!refreshed.containsKey(key)) {
+                changed++;
+            }
+        }
+        sources.clear();
+        sources.putAll(refreshed);
+        buildIndexes();
+        return changed;
+    }
+
+    private static List<Entry> readEntries(Path path, String key, ObjectMapper mapper, LevelingAnalytics analytics) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (SavedVariablesReader sessions = new SavedVariablesReader(path, mapper)) {
+            while (sessions.hasNext()) {
+                LevelingDataParser.LevelingSession session = sessions.next();
+                for (LevelingDataParser.Recording recording : session.recordings) {
+                    if (recording.snapshots == null || recording.snapshots.size() == 0) {
+                        continue;
+                    }
+                    // One malformed recording is left out of the store rather than failing every query over this file.
+                    try {
+                        LevelingAnalytics.RecordingStats stats = analytics.analyze(recording);
+                        long startTime = (recording.startTime != null ? recording.startTime : session.loginTime).getTime();
+                        entries.add(new Entry(key, recording.name != null ? recording.name : "", startTime, recording.characterLevel, stats.stopLevel,
+                                stats.xpGain, stats.durationMinutes, stats.xpPerMinute(), stats.medianXpPerHour));
+                    } catch (RuntimeException e) {
+                        System.out.println("Skipping recording " + recording.name + " in " + path + ": " + e);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    void save() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "recordingStore", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), 1 << 16))) {
+            out.writeInt(magic);
+            out.writeUTF(analyticsVersion);
+            out.writeInt(sources.size());
+            for (Source source : sources.values()) {
+                source.write(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void buildIndexes() {
+        List<Entry> all = new ArrayList<>();
+        for (Source source : sources.values()) {
+            all.addAll(source.entries);
+        }
+        entries = all.toArray(new Entry[0]);
+        Map<String, BitSet> names = new HashMap<>();
+        Map<Integer, BitSet> levels = new HashMap<>();
+        Map<String, List<Double>> routes = new HashMap<>();
+        for (int i=0; i<entries.length; i++) {
+            Entry entry = entries[i];
+            names.computeIfAbsent(nameKey(entry.name), k -> new BitSet()).set(i);
+            for (int level=(int) Math.floor(entry.startLevel); level<=(int) Math.floor(entry.stopLevel); level++) {
+                levels.computeIfAbsent(level, k -> new BitSet()).set(i);
+            }
+            routes.computeIfAbsent(nameKey(entry.name), k -> new ArrayList<>()).add(entry.xpPerMinute * 60);
+        }
+        byName = names;
+        byLevel = levels;
+        byStartTime = sortedBy(Comparator.comparingLong(i -> entries[i].startTime));
+        byXpPerMinute = sortedBy(Comparator.comparingDouble(i -> entries[i].xpPerMinute));
+        Map<String, double[]> routeRates = new HashMap<>();
+        for (Map.Entry<String, List<Double>> route : routes.entrySet()) {
+            double[] rates = route.getValue().stream().mapToDouble(Double::doubleValue).toArray();
+            Arrays.sort(rates);
+            routeRates.put(route.getKey(), rates);
+        }
+        routeXpPerHour = routeRates;
+    }
+
+    private int[] sortedBy(Comparator<Integer> order) {
+        Integer[] ids = new Integer[entries.length];
+        for (int i=0; i<ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, order);
+        return Arrays.stream(ids).mapToInt(Integer::intValue).toArray();
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    List<Entry> query(Query query) {
+        BitSet matches = new BitSet(entries.length);
+        matches.set(0, entries.length);
+        if (query.name != null) {
+            matches.and(byName.getOrDefault(nameKey(query.name), new BitSet()));
+        }
+        if (query.fromTime != Long.MIN_VALUE || query.toTime != Long.MAX_VALUE) {
+            matches.and(range(byStartTime, i -> entries[i].startTime >= query.fromTime, i -> entries[i].startTime < query.toTime));
+        }
+        if (query.minXpPerMinute != Double.NEGATIVE_INFINITY || query.maxXpPerMinute != Double.POSITIVE_INFINITY) {
+            matches.and(range(byXpPerMinute, i -> entries[i].xpPerMinute >= query.minXpPerMinute, i -> entries[i].xpPerMinute <= query.maxXpPerMinute));
+        }
+        if (query.minLevel != Double.NEGATIVE_INFINITY || query.maxLevel != Double.POSITIVE_INFINITY) {
+            BitSet band = new BitSet(entries.length);
+            int low = (int) Math.max(Math.floor(query.minLevel), Integer.MIN_VALUE + 1);
+            int high = (int) Math.min(Math.floor(query.maxLevel), Integer.MAX_VALUE - 1);
+            for (Map.Entry<Integer, BitSet> level : byLevel.entrySet()) {
+                if (level.getKey() >= low && level.getKey() <= high) {
+                    band.or(level.getValue());
+                }
+            }
+            matches.and(band);
+        }
+        List<Entry> results = new ArrayList<>(matches.cardinality());
+        for (int id : byStartTime) {
+            if (matches.get(id) && entries[id].stopLevel >= query.minLevel && entries[id].startLevel <= query.maxLevel) {
+                results.add(entries[id]);
+            }
+        }
+        return results;
+    }
+
+    // byKey is sorted so that atLeast flips from false to true once and atMost flips from true to false once; both ends are found by binary search.
+    private BitSet range(int[] byKey, IntPredicate atLeast, IntPredicate atMost) {
+        int from = firstMatching(byKey, atLeast);
+        int to = firstMatching(byKey, atMost.negate());
+        BitSet ids = new BitSet(entries.length);
+        for (int i=from; i<to; i++) {
+            ids.set(byKey[i]);
+        }
+        return ids;
+    }
+
+    private static int firstMatching(int[] byKey, IntPredicate predicate) {
+        int low = 0;
+        int high = byKey.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (predicate.test(byKey[mid])) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    double routeMedianXpPerHour(String name) {
+        double[] rates = routeXpPerHour.get(nameKey(name));
+        return rates != null ? median(rates) : Double.NaN;
+    }
+
+    static double median(double[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    private static String nameKey(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    static class Query {
+        String name;
+        double minLevel = Double.NEGATIVE_INFINITY;
+        double maxLevel = Double.POSITIVE_INFINITY;
+        long fromTime = Long.MIN_VALUE;
+        long toTime = Long.MAX_VALUE;
+        double minXpPerMinute = Double.NEGATIVE_INFINITY;
+        double maxXpPerMinute = Double.POSITIVE_INFINITY;
+    }
+
+    static class Entry {
+        final String source;
+        final String name;
+        final long startTime;
+        final double startLevel;
+        final double stopLevel;
+        final long xpGain;
+        final double durationMinutes;
+        final double xpPerMinute;
+        final double medianWindowXpPerHour;
+
+        Entry(String source, String name, long startTime, double startLevel, double stopLevel, long xpGain, double durationMinutes,
+              double xpPerMinute, double medianWindowXpPerHour) {
+            this.source = source;
+            this.name = name;
+            this.startTime = startTime;
+            this.startLevel = startLevel;
+            this.stopLevel = stopLevel;
+            this.xpGain = xpGain;
+            this.durationMinutes = durationMinutes;
+            // A NaN rate would sit outside the sorted order the rate range search depends on, so it is indexed as no rate at all.
+            this.xpPerMinute = Double.isNaN(xpPerMinute) ? 0 : xpPerMinute;
+            this.medianWindowXpPerHour = medianWindowXpPerHour;
+        }
+    }
+
+    private static class Source {
+        final String path;
+        final long size;
+        final long modified;
+        final List<Entry> entries;
+
+        Source(String path, long size, long modified, List<Entry> entries) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.entries = entries;
+        }
+
+        static Source read(DataInputStream in) throws IOException {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long modified = in.readLong();
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i=0; i<count; i++) {
+                entries.add(new Entry(path, in.readUTF(), in.readLong(), in.readDouble(), in.readDouble(), in.readLong(),
+                        in.readDouble(), in.readDouble(), in.readDouble()));
+            }
+            return new Source(path, size, modified, entries);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.name);
+                out.writeLong(entry.startTime);
+                out.writeDouble(entry.startLevel);
+                out.writeDouble(entry.stopLevel);
+                out.writeLong(entry.xpGain);
+                out.writeDouble(entry.durationMinutes);
+                out.writeDouble(entry.xpPerMinute);
+                out.writeDouble(entry.medianWindowXpPerHour);
+            }
+        }
+    }
+}
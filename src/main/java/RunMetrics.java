@@ -0,0 +1,241 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class RunMetrics {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    // Upper bounds of the latency buckets; anything slower lands in a final open-ended bucket.
+    private static final long[] bucketMillis = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // Stopped with close() in a finally block rather than try-with-resources, whose unreferenced resource javac flags under -Xlint:try.
+    interface Timer {
+        void close();
+    }
+
+    private final String tool;
+    private final long startedAt = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Phase> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Histogram> histograms = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, LongAdder> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Double> gauges = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Queue<Map<String, Object>>> details = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    RunMetrics(String tool) {
+        this.tool = tool;
+    }
+
+    // Phases accumulate wall time, so a phase timed from several threads at once reports the sum of their time.
+    Phase phase(String name) {
+        return phases.computeIfAbsent(name, k -> new Phase());
+    }
+
+    Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    void count(String name, long delta) {
+        adder(name).add(delta);
+    }
+
+    // For hot paths: look the counter up once and add to it directly instead of taking the map's lock on every update.
+    LongAdder adder(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    long counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    void gauge(String name, double value) {
+        gauges.put(name, value);
+    }
+
+    void detail(String section, Map<String, Object> values) {
+        details.computeIfAbsent(section, k -> new ConcurrentLinkedQueue<>()).add(values);
+    }
+
+    void printSummary() {
+        System.out.printf("%s finished in %.2f s%n", tool, (System.nanoTime() - startNanos) / 1e9);
+        synchronized (phases) {
+            for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+                Phase phase = entry.getValue();
+                if (phase.items.sum() > 0) {
+                    System.out.printf("  %-34s %9.2f s %8d items %9.1f/s%n", entry.getKey(), phase.seconds(), phase.items.sum(), phase.itemsPerSecond());
+                } else {
+                    System.out.printf("  %-34s %9.2f s%n", entry.getKey(), phase.seconds());
+                }
+            }
+        }
+        synchronized (histograms) {
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                Histogram histogram = entry.getValue();
+                if (histogram.count.sum() == 0) {
+                    continue;
+                }
+                System.out.printf("  %-34s %9d x   mean %8.1f ms   p50 %6d ms   p90 %6d ms   p99 %6d ms   max %8.1f ms%n", entry.getKey(),
+                        histogram.count.sum(), histogram.meanMillis(), histogram.percentileMillis(0.5), histogram.percentileMillis(0.9),
+                        histogram.percentileMillis(0.99), histogram.max.get() / 1e6);
+            }
+        }
+        synchronized (counters) {
+            for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+                System.out.printf("  %-34s %9d%n", entry.getKey(), entry.getValue().sum());
+            }
+        }
+        synchronized (gauges) {
+            for (Map.Entry<String, Double> entry : gauges.entrySet()) {
+                System.out.printf("  %-34s %9.2f%n", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    void writeReport(Path file) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("tool", tool);
+        root.put("startedAt", Instant.ofEpochMilli(startedAt).toString());
+        root.put("wallMillis", (System.nanoTime() - startNanos) / 1_000_000);
+        Map<String, Object> phaseReport = new LinkedHashMap<>();
+        synchronized (phases) {
+            phases.forEach((name, phase) -> phaseReport.put(name, phase.report()));
+        }
+        root.put("phases", phaseReport);
+        Map<String, Object> latencyReport = new LinkedHashMap<>();
+        synchronized (histograms) {
+            histograms.forEach((name, histogram) -> latencyReport.put(name, histogram.report()));
+        }
+        root.put("latencies", latencyReport);
+        Map<String, Long> counterReport = new LinkedHashMap<>();
+        synchronized (counters) {
+            counters.forEach((name, counter) -> counterReport.put(name, counter.sum()));
+        }
+        root.put("counters", counterReport);
+        synchronized (gauges) {
+            root.put("gauges", new LinkedHashMap<>(gauges));
+        }
+        synchronized (details) {
+            details.forEach((section, values) -> root.put(section, new ArrayList<>(values)));
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "runMetrics", ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), root);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    static class Phase {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder items = new LongAdder();
+
+        Timer time() {
+            long start = System.nanoTime();
+            return () -> nanos.add(System.nanoTime() - start);
+        }
+
+        void addNanos(long elapsed) {
+            nanos.add(elapsed);
+        }
+
+        void addItems(long count) {
+            items.add(count);
+        }
+
+        private double seconds() {
+            return nanos.sum() / 1e9;
+        }
+
+        private double itemsPerSecond() {
+            return seconds() > 0 ? items.sum() / seconds() : 0;
+        }
+
+        private Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("millis", millis(nanos.sum()));
+            if (items.sum() > 0) {
+                report.put("items", items.sum());
+                report.put("itemsPerSecond", Math.round(itemsPerSecond() * 100) / 100.0);
+            }
+            return report;
+        }
+    }
+
+    static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(bucketMillis.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Timer time() {
+            long start = System.nanoTime();
+            return () -> record(System.nanoTime() - start);
+        }
+
+        void record(long nanos) {
+            int bucket = 0;
+            while (bucket < bucketMillis.length && nanos > bucketMillis[bucket] * 1_000_000) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            totalNanos.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        private double meanMillis() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / 1e6 / n : 0;
+        }
+
+        // Resolved to the upper bound of the bucket holding the percentile, capped at the slowest sample.
+        private long percentileMillis(double percentile) {
+            long n = count.sum();
+            long rank = (long) Math.ceil(percentile * n);
+            long seen = 0;
+            long maxMillis = (long) Math.ceil(max.get() / 1e6);
+            for (int i=0; i<bucketMillis.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketMillis[i], maxMillis);
+                }
+            }
+            return maxMillis;
+        }
+
+        private Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("count", count.sum());
+            report.put("meanMillis", Math.round(meanMillis() * 100) / 100.0);
+            report.put("p50Millis", percentileMillis(0.5));
+            report.put("p90Millis", percentileMillis(0.9));
+            report.put("p99Millis", percentileMillis(0.99));
+            report.put("maxMillis", millis(max.get()));
+            List<Map<String, Object>> histogram = new ArrayList<>();
+            for (int i=0; i<=bucketMillis.length; i++) {
+                Map<String, Object> bucket = new LinkedHashMap<>();
+                bucket.put("upToMillis", i < bucketMillis.length ? bucketMillis[i] : null);
+                bucket.put("count", buckets.get(i));
+                histogram.add(bucket);
+            }
+            report.put("buckets", histogram);
+            return report;
+        }
+    }
+}
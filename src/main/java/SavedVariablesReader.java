@@ -0,0 +1,239 @@
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class SavedVariablesReader implements Iterator<LevelingDataParser.LevelingSession>, Closeable {
+
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private JsonToken next;
+
+    SavedVariablesReader(Path file, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        BufferedReader reader = new BufferedReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            skipToSessionArray(reader);
+            this.parser = mapper.getFactory().createParser(new LuaStringReader(reader));
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Leveling data in " + file + " is not a JSON array");
+            }
+            this.next = parser.nextToken();
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private static void skipToSessionArray(BufferedReader reader) throws IOException {
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '[') {
+                reader.mark(1);
+                boolean arrayOfObjects = reader.read() == '{';
+                reader.reset();
+                if (arrayOfObjects) {
+                    return;
+                }
+            }
+        }
+        throw new IOException("No leveling session data found");
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next == JsonToken.START_OBJECT;
+    }
+
+    @Override
+    public LevelingDataParser.LevelingSession next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            LevelingDataParser.LevelingSession session = mapper.readValue(parser, LevelingDataParser.LevelingSession.class);
+            next = parser.nextToken();
+            return session;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    // Undoes Lua string escaping on the fly. Decimal (\ddd) and hex (\xXX) escapes are bytes, so a run of them is decoded as UTF-8
+    // together; everything an escape produces goes through pending so plain characters can still be copied straight through.
+    private static class LuaStringReader extends Reader {
+        private final Reader in;
+        private final char[] chunk = new char[1 << 16];
+        private int position;
+        private int limit;
+        private boolean pendingOpenBracket = true;
+        private boolean ended;
+        private final StringBuilder pending = new StringBuilder();
+        private int pendingPosition;
+        private byte[] escapedBytes = new byte[16];
+        private int escapedByteCount;
+
+        LuaStringReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int count = 0;
+            if (pendingOpenBracket) {
+                buffer[offset + count++] = '[';
+                pendingOpenBracket = false;
+            }
+            while (count < length) {
+                if (pendingPosition < pending.length()) {
+                    buffer[offset + count++] = pending.charAt(pendingPosition++);
+                    continue;
+                }
+                if (ended) {
+                    break;
+                }
+                int c = nextRaw();
+                if (c == -1 || c == '"') {
+                    ended = true;
+                    break;
+                }
+                if (c == '\\') {
+                    unescape();
+                    continue;
+                }
+                buffer[offset + count++] = (char) c;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        private int nextRaw() throws IOException {
+            if (position == limit) {
+                limit = in.read(chunk, 0, chunk.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return chunk[position++];
+        }
+
+        // Only ever called right after nextRaw returned a character, which is then still in the chunk.
+        private void unread() {
+            position--;
+        }
+
+        // Called after a backslash; leaves whatever the escape stands for in pending.
+        private void unescape() throws IOException {
+            pending.setLength(0);
+            pendingPosition = 0;
+            int c = nextRaw();
+            while (true) {
+                if (c >= '0' && c <= '9') {
+                    int value = c - '0';
+                    for (int i=0; i<2; i++) {
+                        int digit = nextRaw();
+                        if (digit < '0' || digit > '9') {
+                            if (digit != -1) {
+                                unread();
+                            }
+                            break;
+                        }
+                        value = value * 10 + digit - '0';
+                    }
+                    addEscapedByte(value);
+                } else if (c == 'x') {
+                    addEscapedByte(Character.digit(nextRaw(), 16) * 16 + Character.digit(nextRaw(), 16));
+                } else {
+                    break;
+                }
+                // Another byte escape right behind this one may continue the same multi-byte character.
+                c = nextRaw();
+                if (c != '\\') {
+                    if (c != -1) {
+                        unread();
+                    }
+                    flushEscapedBytes();
+                    return;
+                }
+                c = nextRaw();
+            }
+            flushEscapedBytes();
+            switch (c) {
+                case -1:
+                    ended = true;
+                    break;
+                case 'n':
+                    pending.append('\n');
+                    break;
+                case 't':
+                    pending.append('\t');
+                    break;
+                case 'r':
+                    pending.append('\r');
+                    break;
+                case 'a':
+                    pending.append('\u0007');
+                    break;
+                case 'b':
+                    pending.append('\b');
+                    break;
+                case 'f':
+                    pending.append('\f');
+                    break;
+                case 'v':
+                    pending.append('\u000b');
+                    break;
+                case 'z':
+                    int next = nextRaw();
+                    while (next != -1 && Character.isWhitespace(next)) {
+                        next = nextRaw();
+                    }
+                    if (next != -1) {
+                        unread();
+                    }
+                    break;
+                default:
+                    pending.append((char) c);
+            }
+        }
+
+        private void addEscapedByte(int value) {
+            if (escapedByteCount == escapedBytes.length) {
+                escapedBytes = Arrays.copyOf(escapedBytes, escapedByteCount * 2);
+            }
+            escapedBytes[escapedByteCount++] = (byte) value;
+        }
+
+        private void flushEscapedBytes() {
+            if (escapedByteCount > 0) {
+                pending.append(new String(escapedBytes, 0, escapedByteCount, StandardCharsets.UTF_8));
+                escapedByteCount = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+class ScrapeJournal implements AutoCloseable {
+
+    static class QuestRecord {
+        final long fetchedAt;
+        final Set<Integer> itemIds;
+
+        QuestRecord(long fetchedAt, Set<Integer> itemIds) {
+            this.fetchedAt = fetchedAt;
+            this.itemIds = itemIds;
+        }
+    }
+
+    private final Path file;
+    private final Map<Integer, QuestRecord> quests = new HashMap<>();
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private final Map<String, String> previousFailures;
+    private final long interruptedRunStart;
+    private final long runStart;
+    private BufferedWriter writer;
+
+    private ScrapeJournal(Path file) throws IOException {
+        this.file = file;
+        long lastStart = 0;
+        boolean finished = true;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    switch (fields[0]) {
+                        case "start":
+                            lastStart = Long.parseLong(fields[1]);
+                            finished = false;
+                            break;
+                        case "done":
+                            finished = true;
+                            break;
+                        case "quest":
+                            Set<Integer> itemIds = fields[3].isEmpty() ? new TreeSet<>() : Arrays.stream(fields[3].split(","))
+                                    .map(Integer::valueOf).collect(Collectors.toCollection(TreeSet::new));
+                            quests.put(Integer.parseInt(fields[1]), new QuestRecord(Long.parseLong(fields[2]), itemIds));
+                            break;
+                        case "fail":
+                            failures.put(fields[1], fields[2]);
+                            break;
+                        case "ok":
+                            failures.remove(fields[1]);
+                            break;
+                    }
+                }
+            }
+        }
+        this.previousFailures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        this.interruptedRunStart = finished ? 0 : lastStart;
+        if (finished) {
+            failures.clear();
+        }
+        this.runStart = System.currentTimeMillis();
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (interruptedRunStart == 0) {
+            append("start\t" + runStart);
+        }
+    }
+
+    static ScrapeJournal open(Path file) throws IOException {
+        return new ScrapeJournal(file);
+    }
+
+    boolean isResuming() {
+        return interruptedRunStart != 0;
+    }
+
+    long getRunStart() {
+        return isResuming() ? interruptedRunStart : runStart;
+    }
+
+    Map<String, String> getPreviousFailures() {
+        return previousFailures;
+    }
+
+    synchronized QuestRecord getQuest(int questId) {
+        return quests.get(questId);
+    }
+
+    synchronized void recordQuest(int questId, Set<Integer> itemIds) throws IOException {
+        QuestRecord record = new QuestRecord(System.currentTimeMillis(), new TreeSet<>(itemIds));
+        quests.put(questId, record);
+        append(questLine(questId, record));
+    }
+
+    synchronized void recordFailure(String url, Exception e) throws IOException {
+        String message = String.valueOf(e).replaceAll("\\s+", " ");
+        failures.put(url, message);
+        append("fail\t" + url + "\t" + message);
+    }
+
+    synchronized void recordSuccess(String url) throws IOException {
+        if (failures.remove(url) != null) {
+            append("ok\t" + url);
+        }
+    }
+
+    synchronized Map<String, String> getFailures() {
+        return new LinkedHashMap<>(failures);
+    }
+
+    synchronized void complete() throws IOException {
+        writer.close();
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "scrape", ".journal");
+        try (BufferedWriter compacted = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Integer, QuestRecord> entry : new TreeMap<>(quests).entrySet()) {
+                compacted.write(questLine(entry.getKey(), entry.getValue()));
+                compacted.newLine();
+            }
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                compacted.write("fail\t" + failure.getKey() + "\t" + failure.getValue());
+                compacted.newLine();
+            }
+            compacted.write("done\t" + System.currentTimeMillis());
+            compacted.newLine();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static String questLine(int questId, QuestRecord record) {
+        return "quest\t" + questId + "\t" + record.fetchedAt + "\t"
+                + record.itemIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private void append(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
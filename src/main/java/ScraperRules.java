@@ -0,0 +1,68 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ScraperRules {
+
+    private static final String defaultRulesResource = "/scraperRules.txt";
+
+    final KeywordMatcher questNameExclusions;
+    final KeywordMatcher itemPageExclusions;
+    final KeywordMatcher itemTooltipExclusions;
+    final String fingerprint;
+
+    private ScraperRules(Map<String, List<String>> sections, String fingerprint) {
+        this.questNameExclusions = KeywordMatcher.compile(sections.getOrDefault("questName", List.of()));
+        this.itemPageExclusions = KeywordMatcher.compile(sections.getOrDefault("itemPage", List.of()));
+        this.itemTooltipExclusions = KeywordMatcher.compile(sections.getOrDefault("itemTooltip", List.of()));
+        this.fingerprint = fingerprint;
+    }
+
+    static ScraperRules load(String rulesFile) throws IOException {
+        byte[] rules;
+        if (rulesFile != null) {
+            rules = Files.readAllBytes(Path.of(rulesFile));
+        } else {
+            try (InputStream in = ScraperRules.class.getResourceAsStream(defaultRulesResource)) {
+                if (in == null) {
+                    throw new FileNotFoundException(defaultRulesResource);
+                }
+                rules = in.readAllBytes();
+            }
+        }
+        return parse(rules);
+    }
+
+    static ScraperRules parse(byte[] rules) throws IOException {
+        Map<String, List<String>> sections = new HashMap<>();
+        List<String> current = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(rules), StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                current = sections.computeIfAbsent(line.substring(1, line.length() - 1).strip(), k -> new ArrayList<>());
+            } else if (current == null) {
+                throw new IOException("Rule on line " + lineNumber + " is not inside a [section]");
+            } else {
+                current.add(line);
+            }
+        }
+        return new ScraperRules(sections, Hashing.sha256(rules));
+    }
+}
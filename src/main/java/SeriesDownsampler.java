@@ -0,0 +1,51 @@
+class SeriesDownsampler {
+
+    static final int minimumBudget = 3;
+
+    private SeriesDownsampler() {
+    }
+
+    // Largest-Triangle-Three-Buckets: keeps the first and last points and, from each of the buckets in between, the point forming the
+    // largest triangle with the previously kept point and the average of the next bucket. Returns the kept indices in order, or null
+    // when downsampling is off (a budget of 0 or less) or the series already fits in the budget.
+    static int[] largestTriangleThreeBuckets(double[] x, double[] y, int budget) {
+        if (budget > 0 && budget < minimumBudget) {
+            throw new IllegalArgumentException("Downsampling budget " + budget + " is below the minimum of " + minimumBudget);
+        }
+        int n = x.length;
+        if (budget <= 0 || n <= budget) {
+            return null;
+        }
+        int[] kept = new int[budget];
+        double bucketSize = (double) (n - 2) / (budget - 2);
+        int previous = 0;
+        for (int bucket=0; bucket<budget-2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i=nextStart; i<nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            double largestArea = -1;
+            int chosen = start;
+            for (int i=start; i<end; i++) {
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous]) - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        kept[budget - 1] = n - 1;
+        return kept;
+    }
+}
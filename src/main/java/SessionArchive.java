@@ -0,0 +1,190 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Binary copy of the parsed sessions, stamped with the size and modification time of the SavedVariables file it came from.
+class SessionArchive {
+
+    private static final int magic = 0x4C565331;
+    private static final long noTime = Long.MIN_VALUE;
+
+    static boolean isCurrent(Path archive, Path source) throws IOException {
+        if (!Files.exists(archive)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archive), 64))) {
+            return in.readInt() == magic
+                    && in.readLong() == Files.size(source)
+                    && in.readLong() == Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static Reader open(Path archive) throws IOException {
+        return new Reader(archive);
+    }
+
+    static Writer create(Path archive, Path source) throws IOException {
+        return new Writer(archive, source);
+    }
+
+    static class Reader implements Iterator<LevelingDataParser.LevelingSession>, Closeable {
+        private final DataInputStream in;
+        private boolean hasNext;
+
+        private Reader(Path archive) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(FileChannel.open(archive, StandardOpenOption.READ)), 1 << 16));
+            try {
+                if (in.readInt() != magic) {
+                    throw new IOException(archive + " is not a session archive");
+                }
+                in.readLong();
+                in.readLong();
+                this.hasNext = in.readBoolean();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public LevelingDataParser.LevelingSession next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            try {
+                LevelingDataParser.LevelingSession session = new LevelingDataParser.LevelingSession();
+                session.setLoginTime(readDate(in));
+                session.setLogoutTime(readDate(in));
+                LevelingDataParser.Recording[] recordings = new LevelingDataParser.Recording[in.readInt()];
+                for (int i=0; i<recordings.length; i++) {
+                    LevelingDataParser.Recording recording = new LevelingDataParser.Recording();
+                    recording.setStartTime(readDate(in));
+                    recording.setStopTime(readDate(in));
+                    recording.setName(in.readBoolean() ? in.readUTF() : null);
+                    recording.setStartGetTime(in.readInt());
+                    recording.setCharacterLevel(in.readDouble());
+                    int count = in.readInt();
+                    SnapshotSeries snapshots = new SnapshotSeries();
+                    for (int k=0; k<count; k++) {
+                        snapshots.add(in.readDouble());
+                    }
+                    recording.setSnapshots(snapshots);
+                    recordings[i] = recording;
+                }
+                session.setRecordings(recordings);
+                hasNext = in.readBoolean();
+                return session;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Sessions are written to a temp file as they stream past; only commit() replaces the archive, so a failed parse never leaves a partial one.
+    static class Writer implements Closeable {
+        private final Path archive;
+        private final Path tempFile;
+        private final DataOutputStream out;
+        private boolean committed;
+
+        private Writer(Path archive, Path source) throws IOException {
+            this.archive = archive;
+            this.tempFile = Files.createTempFile(archive.toAbsolutePath().getParent(), "sessionArchive", ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), 1 << 16));
+            out.writeInt(magic);
+            out.writeLong(Files.size(source));
+            out.writeLong(Files.getLastModifiedTime(source).toMillis());
+        }
+
+        Iterator<LevelingDataParser.LevelingSession> tee(Iterator<LevelingDataParser.LevelingSession> sessions) {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return sessions.hasNext();
+                }
+
+                @Override
+                public LevelingDataParser.LevelingSession next() {
+                    LevelingDataParser.LevelingSession session = sessions.next();
+                    try {
+                        write(session);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return session;
+                }
+            };
+        }
+
+        void write(LevelingDataParser.LevelingSession session) throws IOException {
+            out.writeBoolean(true);
+            writeDate(out, session.getLoginTime());
+            writeDate(out, session.getLogoutTime());
+            out.writeInt(session.getRecordings().length);
+            for (LevelingDataParser.Recording recording : session.getRecordings()) {
+                writeDate(out, recording.getStartTime());
+                writeDate(out, recording.getStopTime());
+                out.writeBoolean(recording.getName() != null);
+                if (recording.getName() != null) {
+                    out.writeUTF(recording.getName());
+                }
+                out.writeInt(recording.getStartGetTime());
+                out.writeDouble(recording.getCharacterLevel());
+                SnapshotSeries snapshots = recording.getSnapshots();
+                out.writeInt(snapshots.size());
+                for (int k=0; k<snapshots.size(); k++) {
+                    out.writeDouble(snapshots.get(k));
+                }
+            }
+        }
+
+        void commit() throws IOException {
+            out.writeBoolean(false);
+            out.close();
+            Files.move(tempFile, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : noTime);
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        return time != noTime ? new Date(time) : null;
+    }
+}
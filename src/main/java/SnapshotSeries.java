@@ -0,0 +1,101 @@
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Level snapshots taken every 5 seconds, stored unboxed in fixed-size chunks so multi-hour recordings never copy one huge array while growing.
+@JsonSerialize(using = SnapshotSeries.Serializer.class)
+@JsonDeserialize(using = SnapshotSeries.Deserializer.class)
+class SnapshotSeries {
+
+    private static final int chunkShift = 12;
+    private static final int chunkSize = 1 << chunkShift;
+    private static final int chunkMask = chunkSize - 1;
+
+    private double[][] chunks = new double[1][];
+    private int size;
+
+    static SnapshotSeries of(double... values) {
+        SnapshotSeries series = new SnapshotSeries();
+        for (double value : values) {
+            series.add(value);
+        }
+        return series;
+    }
+
+    void add(double value) {
+        int chunk = size >>> chunkShift;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new double[chunkSize];
+        }
+        chunks[chunk][size & chunkMask] = value;
+        size++;
+    }
+
+    double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return chunks[index >>> chunkShift][index & chunkMask];
+    }
+
+    double last() {
+        return get(size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    static class Serializer extends StdSerializer<SnapshotSeries> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(SnapshotSeries.class);
+        }
+
+        @Override
+        public void serialize(SnapshotSeries series, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(series.size);
+            for (int i=0; i<series.size; i++) {
+                generator.writeNumber(series.get(i));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    static class Deserializer extends StdDeserializer<SnapshotSeries> {
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(SnapshotSeries.class);
+        }
+
+        @Override
+        public SnapshotSeries deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (SnapshotSeries) context.handleUnexpectedToken(SnapshotSeries.class, parser);
+            }
+            SnapshotSeries series = new SnapshotSeries();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                    return (SnapshotSeries) context.handleUnexpectedToken(SnapshotSeries.class, parser);
+                }
+                series.add(parser.getDoubleValue());
+            }
+            return series;
+        }
+    }
+}
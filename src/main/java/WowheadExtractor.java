@@ -0,0 +1,95 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+class WowheadExtractor {
+
+    private static final String listviewArrayStart = "[{\"category\":";
+    private static final JsonFactory jsonFactory = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
+
+    static class ListedQuest {
+        final int id;
+        final String name;
+        final int category;
+        final boolean daily;
+
+        ListedQuest(int id, String name, int category, boolean daily) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.daily = daily;
+        }
+    }
+
+    static List<ListedQuest> extractListedQuests(String html) throws IOException {
+        List<ListedQuest> quests = new ArrayList<>();
+        int start = html.indexOf(listviewArrayStart);
+        while (start != -1) {
+            StringReader reader = new StringReader(html);
+            reader.skip(start);
+            long consumed;
+            try (JsonParser parser = jsonFactory.createParser(reader)) {
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ListedQuest quest = readListedQuest(parser);
+                    if (quest != null) {
+                        quests.add(quest);
+                    }
+                }
+                consumed = parser.getCurrentLocation().getCharOffset();
+            }
+            start = html.indexOf(listviewArrayStart, start + (int) Math.max(consumed, 1));
+        }
+        return quests;
+    }
+
+    private static ListedQuest readListedQuest(JsonParser parser) throws IOException {
+        Integer id = null;
+        String name = null;
+        int category = 0;
+        boolean daily = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getIntValue();
+                    break;
+                case "name":
+                    name = parser.getText();
+                    break;
+                case "category":
+                    category = parser.getIntValue();
+                    break;
+                case "daily":
+                    daily = value == JsonToken.VALUE_TRUE || (value == JsonToken.VALUE_NUMBER_INT && parser.getIntValue() != 0);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return id != null && name != null ? new ListedQuest(id, name, category, daily) : null;
+    }
+
+    static String extractTooltip(String itemHtml) {
+        int start = itemHtml.indexOf("<h1");
+        if (start == -1) {
+            return null;
+        }
+        int end = itemHtml.indexOf("</noscript>", start + "<h1".length() + 1);
+        if (end == -1) {
+            return null;
+        }
+        return itemHtml.substring(start, end + "</noscript>".length());
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class XpTable {
+
+    private static final String defaultTableResource = "/xpPerLevel.txt";
+
+    private final int firstLevel;
+    private final int[] xpToNext;
+    private final long[] cumulativeXp;
+    final String fingerprint;
+
+    private XpTable(int firstLevel, int[] xpToNext, String fingerprint) {
+        this.firstLevel = firstLevel;
+        this.xpToNext = xpToNext;
+        this.cumulativeXp = new long[xpToNext.length + 1];
+        for (int i=0; i<xpToNext.length; i++) {
+            cumulativeXp[i + 1] = cumulativeXp[i] + xpToNext[i];
+        }
+        this.fingerprint = fingerprint;
+    }
+
+    static XpTable load(String tableFile) throws IOException {
+        byte[] table;
+        if (tableFile != null) {
+            table = Files.readAllBytes(Path.of(tableFile));
+        } else {
+            try (InputStream in = XpTable.class.getResourceAsStream(defaultTableResource)) {
+                if (in == null) {
+                    throw new FileNotFoundException(defaultTableResource);
+                }
+                table = in.readAllBytes();
+            }
+        }
+        return parse(table);
+    }
+
+    static XpTable parse(byte[] table) throws IOException {
+        List<Integer> xp = new ArrayList<>();
+        int firstLevel = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(table), StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            int level;
+            try {
+                if (fields.length != 2) {
+                    throw new NumberFormatException();
+                }
+                level = Integer.parseInt(fields[0]);
+                xp.add(Integer.parseInt(fields[1]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + " is not a \"<level> <xp>\" pair");
+            }
+            if (xp.size() == 1) {
+                firstLevel = level;
+            } else if (level != firstLevel + xp.size() - 1) {
+                throw new IOException("Level on line " + lineNumber + " does not follow level " + (firstLevel + xp.size() - 2));
+            }
+        }
+        if (xp.isEmpty()) {
+            throw new IOException("XP table is empty");
+        }
+        return new XpTable(firstLevel, xp.stream().mapToInt(Integer::intValue).toArray(), Hashing.sha256(table));
+    }
+
+    // Total XP earned since the start of the first level in the table. Levels outside the table are clamped to its ends,
+    // so one stray sample costs a little accuracy instead of the whole report.
+    long totalXp(double level) {
+        if (!(level >= firstLevel)) {
+            return 0;
+        }
+        int whole = (int) Math.floor(level);
+        int index = whole - firstLevel;
+        if (index >= xpToNext.length) {
+            return cumulativeXp[xpToNext.length];
+        }
+        return cumulativeXp[index] + (int) ((level - whole) * xpToNext[index]);
+    }
+
+    // Within a single level the gain is truncated once rather than twice, matching what the reports have always shown.
+    long xpGain(double startLevel, double stopLevel) {
+        int whole = (int) Math.floor(startLevel);
+        if (whole == (int) Math.floor(stopLevel) && whole - firstLevel >= 0 && whole - firstLevel < xpToNext.length) {
+            return (int) ((stopLevel - startLevel) * xpToNext[whole - firstLevel]);
+        }
+        return totalXp(stopLevel) - totalXp(startLevel);
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingPageFetcherTest {
+
+    private static final String lastModified = "Mon, 01 Mar 2021 10:00:00 GMT";
+
+    @TempDir
+    Path dir;
+
+    private CachingPageFetcher fetcher(long ttlMillis, boolean offline, RunMetrics metrics) throws IOException {
+        return new CachingPageFetcher(new PageCache(dir.resolve("pageCache")), ttlMillis, offline, metrics);
+    }
+
+    @Test
+    void freshCopyIsServedUntilItExpires() throws IOException {
+        try (StubServer server = new StubServer(0, path -> StubServer.Response.ok("<p>quest page</p>"))) {
+            String url = server.url("/quest=1");
+            RunMetrics metrics = new RunMetrics("test");
+            assertNull(fetcher(TimeUnit.HOURS.toMillis(1), false, metrics).fetchFromCache(url));
+            assertTrue(fetcher(TimeUnit.HOURS.toMillis(1), false, metrics).fetch(url).contains("quest page"));
+
+            assertTrue(fetcher(TimeUnit.HOURS.toMillis(1), false, metrics).fetchFromCache(url).contains("quest page"));
+            assertNull(fetcher(0, false, metrics).fetchFromCache(url));
+            assertEquals(1, server.count("/quest=1"));
+            assertEquals(1, metrics.counter("page cache hits"));
+            assertEquals(1, metrics.counter("page cache misses"));
+        }
+    }
+
+    @Test
+    void staleCopyIsRevalidatedWithItsValidators() throws IOException {
+        AtomicBoolean unchanged = new AtomicBoolean(false);
+        StubServer.Responder responder = path -> unchanged.get()
+                ? StubServer.Response.status(304)
+                : StubServer.Response.ok("<p>quest page</p>").header("ETag", "\"v1\"").header("Last-Modified", lastModified);
+        try (StubServer server = new StubServer(0, responder)) {
+            String url = server.url("/quest=1");
+            RunMetrics metrics = new RunMetrics("test");
+            fetcher(0, false, metrics).fetch(url);
+
+            unchanged.set(true);
+            assertTrue(fetcher(0, false, metrics).fetch(url).contains("quest page"));
+            StubServer.Request revalidation = server.requests().get(1);
+            assertEquals("\"v1\"", revalidation.header("If-None-Match"));
+            assertEquals(lastModified, revalidation.header("If-Modified-Since"));
+            assertEquals(1, metrics.counter("page cache revalidations"));
+
+            // A revalidated copy counts as freshly fetched again.
+            assertTrue(fetcher(TimeUnit.HOURS.toMillis(1), false, metrics).fetchFromCache(url).contains("quest page"));
+            assertEquals(2, server.count("/quest=1"));
+        }
+    }
+
+    @Test
+    void offlineModeServesStaleCopiesAndNeverFetches() throws IOException {
+        try (StubServer server = new StubServer(0, path -> StubServer.Response.ok("<p>quest page</p>"))) {
+            String url = server.url("/quest=1");
+            fetcher(0, false, new RunMetrics("test")).fetch(url);
+
+            CachingPageFetcher offline = fetcher(0, true, new RunMetrics("test"));
+            assertTrue(offline.fetchFromCache(url).contains("quest page"));
+            assertThrows(FileNotFoundException.class, () -> offline.fetchFromCache(server.url("/quest=2")));
+            assertThrows(FileNotFoundException.class, () -> offline.fetch(server.url("/quest=2")));
+            assertEquals(1, server.requests().size());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlEngineTest {
+
+    private static final PageFetcher jsoupFetcher = url -> Jsoup.connect(url).execute().body();
+    private static final List<Integer> pages = IntStream.range(0, 16).boxed().collect(Collectors.toList());
+
+    @Test
+    void crawlGetsFasterAsConcurrencyGoesUp() throws IOException {
+        try (StubServer server = new StubServer(100, path -> StubServer.Response.ok("<p>" + path + "</p>"))) {
+            long serial = crawlMillis(server, 1);
+            long parallel = crawlMillis(server, 8);
+            assertTrue(serial >= pages.size() * 100, "serial crawl took " + serial + " ms");
+            assertTrue(parallel * 3 < serial, "concurrency 8 took " + parallel + " ms against " + serial + " ms serially");
+        }
+    }
+
+    private static long crawlMillis(StubServer server, int concurrency) throws IOException {
+        Set<Integer> fetched = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        try (CrawlEngine engine = new CrawlEngine(jsoupFetcher, concurrency, 0, 0, 0, new RunMetrics("test"))) {
+            Map<Integer, IOException> failures = engine.crawl("page", pages, page -> server.url("/page=" + page), (page, html) -> fetched.add(page));
+            assertTrue(failures.isEmpty(), failures.toString());
+        }
+        assertEquals(pages.size(), fetched.size());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    void rateLimiterSpacesRequestsToOneHost() throws IOException {
+        try (StubServer server = new StubServer(0, path -> StubServer.Response.ok("<p></p>"));
+             CrawlEngine engine = new CrawlEngine(jsoupFetcher, 8, 50, 0, 0, new RunMetrics("test"))) {
+            engine.crawl("page", pages.subList(0, 8), page -> server.url("/page=" + page), (page, html) -> {});
+            long[] arrivals = server.requests().stream().mapToLong(request -> request.arrivalNanos).sorted().toArray();
+            assertEquals(8, arrivals.length);
+            for (int i=1; i<arrivals.length; i++) {
+                long gapMillis = TimeUnit.NANOSECONDS.toMillis(arrivals[i] - arrivals[i - 1]);
+                assertTrue(gapMillis >= 40, "requests " + (i - 1) + " and " + i + " were " + gapMillis + " ms apart");
+            }
+        }
+    }
+
+    @Test
+    void retriesThrottledAndServerErrors() throws IOException {
+        AtomicInteger throttled = new AtomicInteger();
+        AtomicInteger unavailable = new AtomicInteger();
+        StubServer.Responder responder = path -> {
+            if (path.equals("/throttled") && throttled.incrementAndGet() <= 2) {
+                return StubServer.Response.status(429);
+            }
+            if (path.equals("/unavailable") && unavailable.incrementAndGet() <= 1) {
+                return StubServer.Response.status(503);
+            }
+            return StubServer.Response.ok("<p>" + path + "</p>");
+        };
+        try (StubServer server = new StubServer(0, responder);
+             CrawlEngine engine = new CrawlEngine(jsoupFetcher, 2, 0, 3, 10, new RunMetrics("test"))) {
+            Map<String, IOException> failures = engine.crawl("page", List.of("/throttled", "/unavailable"), server::url, (path, html) -> {});
+            assertTrue(failures.isEmpty(), failures.toString());
+            assertEquals(3, server.count("/throttled"));
+            assertEquals(2, server.count("/unavailable"));
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() throws IOException {
+        try (StubServer server = new StubServer(0, path -> StubServer.Response.status(500));
+             CrawlEngine engine = new CrawlEngine(jsoupFetcher, 1, 0, 2, 10, new RunMetrics("test"))) {
+            Map<String, IOException> failures = engine.crawl("page", List.of("/broken"), server::url, (path, html) -> {});
+            assertEquals(3, server.count("/broken"));
+            HttpStatusException failure = assertInstanceOf(HttpStatusException.class, failures.get("/broken"));
+            assertEquals(500, failure.getStatusCode());
+        }
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws IOException {
+        try (StubServer server = new StubServer(0, path -> StubServer.Response.status(404));
+             CrawlEngine engine = new CrawlEngine(jsoupFetcher, 1, 0, 3, 10, new RunMetrics("test"))) {
+            Map<String, IOException> failures = engine.crawl("page", List.of("/missing"), server::url, (path, html) -> {});
+            assertEquals(1, server.count("/missing"));
+            assertEquals(404, assertInstanceOf(HttpStatusException.class, failures.get("/missing")).getStatusCode());
+        }
+    }
+}
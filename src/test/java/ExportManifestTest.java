@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportManifestTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void skippedSessionIsNotReconsideredUntilItChanges() throws IOException {
+        Path manifestFile = dir.resolve("exportManifest.json");
+        Path workbook = dir.resolve("LevelingData_030121_100000.xlsx");
+        ExportManifest manifest = ExportManifest.empty(manifestFile, "test");
+        assertTrue(manifest.needsExport(workbook, "empty session"));
+        manifest.skip(workbook, "empty session");
+        manifest.save();
+
+        assertFalse(ExportManifest.load(manifestFile, "test").needsExport(workbook, "empty session"));
+        assertTrue(ExportManifest.load(manifestFile, "test").needsExport(workbook, "session with a recording"));
+        assertTrue(ExportManifest.load(manifestFile, "other version").needsExport(workbook, "empty session"));
+
+        // A skipped session that is still unchanged stays recorded across further runs.
+        manifest = ExportManifest.load(manifestFile, "test");
+        manifest.needsExport(workbook, "empty session");
+        manifest.save();
+        assertFalse(ExportManifest.load(manifestFile, "test").needsExport(workbook, "empty session"));
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemClassificationCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void classificationsExpireAfterMaxAge() throws IOException {
+        Path file = dir.resolve("itemClassifications.json");
+        long maxAge = TimeUnit.DAYS.toMillis(7);
+        ItemClassificationCache cache = ItemClassificationCache.load(file, "rules", maxAge);
+        cache.put(1, ItemClassification.accepted(336112, 30));
+        ItemClassification old = ItemClassification.rejected("No use effect");
+        cache.put(2, old);
+        old.classifiedAt = System.currentTimeMillis() - maxAge - 1;
+        cache.save();
+
+        cache = ItemClassificationCache.load(file, "rules", maxAge);
+        assertNotNull(cache.get(1));
+        assertEquals(336112, cache.get(1).spellID);
+        assertNull(cache.get(2));
+        assertNull(ItemClassificationCache.load(file, "other rules", maxAge).get(1));
+    }
+}
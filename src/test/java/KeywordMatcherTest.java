@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordMatcherTest {
+
+    @Test
+    void findsOverlappingAndSuffixSharingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("he", "she", "his", "hers"));
+        assertEquals("she", matcher.findFirst("ushers"));
+        assertEquals("his", matcher.findFirst("xhis"));
+        assertEquals("he", matcher.findFirst("the"));
+        assertNull(matcher.findFirst("hxrs"));
+
+        KeywordMatcher equipped = KeywordMatcher.compile(List.of("unique-equipped", "equipped", "tabard"));
+        assertEquals("unique-equipped", equipped.findFirst("Unique-Equipped: Tabard"));
+        assertEquals("tabard", equipped.findFirst("a guild tabard"));
+        assertEquals("equipped", equipped.findFirst("unique-equ equipped"));
+        assertNull(equipped.findFirst("unique-equip"));
+    }
+
+    @Test
+    void foldsCaseOfKeywordsAndText() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("Sell Price", "\u00c9clat", "Chromie's Scroll"));
+        assertEquals("sell price", matcher.findFirst("<span>SELL PRICE: 5g</span>"));
+        assertEquals("\u00e9clat", matcher.findFirst("\u00c9CLAT DE LUNE"));
+        assertEquals("chromie's scroll", matcher.findFirst("chromie's SCROLL"));
+        assertFalse(matcher.matches("sell-price"));
+        assertNull(KeywordMatcher.compile(List.of()).findFirst("anything"));
+        assertEquals("price", KeywordMatcher.compile(List.of("", "price")).findFirst("sell price", 5, 10));
+        assertNull(KeywordMatcher.compile(List.of("price")).findFirst("sell price", 0, 9));
+    }
+
+    @Test
+    void foldingDoesNotDependOnTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            KeywordMatcher matcher = KeywordMatcher.compile(List.of("UNIQUE-EQUIPPED", "TITLE"));
+            assertEquals("unique-equipped", matcher.findFirst("Unique-Equipped"));
+            assertEquals("title", matcher.findFirst("a title"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    // The matcher replaced one toLowerCase().contains(keyword) check per keyword; on random text both must agree.
+    @Test
+    void agreesWithPerKeywordContains() {
+        Random random = new Random(4);
+        String alphabet = "abcAB -\u00e9";
+        for (int round=0; round<200; round++) {
+            List<String> keywords = List.of(randomText(random, alphabet, 1 + random.nextInt(3)), randomText(random, alphabet, 1 + random.nextInt(4)),
+                    randomText(random, alphabet, 2 + random.nextInt(4)));
+            KeywordMatcher matcher = KeywordMatcher.compile(keywords);
+            String text = randomText(random, alphabet, random.nextInt(40));
+            String lowerText = text.toLowerCase(Locale.ROOT);
+            boolean expected = keywords.stream().anyMatch(keyword -> lowerText.contains(keyword.toLowerCase(Locale.ROOT)));
+            String found = matcher.findFirst(text);
+            assertEquals(expected, found != null, keywords + " in \"" + text + "\"");
+            if (found != null) {
+                assertTrue(lowerText.contains(found));
+            }
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i=0; i<length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LevelingAnalyticsTest {
+
+    private static LevelingDataParser.Recording recording(double characterLevel, double... snapshots) {
+        LevelingDataParser.Recording recording = new LevelingDataParser.Recording();
+        recording.name = "Bastion";
+        recording.characterLevel = characterLevel;
+        recording.snapshots = SnapshotSeries.of(snapshots);
+        return recording;
+    }
+
+    @Test
+    void recordingWithoutSnapshotsHasEmptyStats() throws IOException {
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(null), 5);
+        LevelingAnalytics.RecordingStats stats = analytics.analyze(recording(55.5));
+        assertEquals(0, stats.xpGain);
+        assertEquals(0, stats.durationMinutes);
+        assertEquals(55.5, stats.stopLevel);
+        assertEquals(0, stats.xpPerHour());
+        assertEquals(0, stats.percentXPPerMinute());
+        assertEquals(1, stats.minutes.length);
+    }
+
+    @Test
+    void levelsOutsideTheTableAreClamped() throws IOException {
+        XpTable xpTable = XpTable.load(null);
+        assertEquals(0, xpTable.totalXp(49.5));
+        assertEquals(0, xpTable.totalXp(Double.NaN));
+        assertEquals(xpTable.totalXp(60), xpTable.totalXp(60.4));
+        assertEquals(xpTable.totalXp(60), xpTable.totalXp(75));
+
+        double[] snapshots = new double[120];
+        for (int i=0; i<snapshots.length; i++) {
+            snapshots[i] = 59.9 + i * 0.002;
+        }
+        LevelingAnalytics.RecordingStats stats = new LevelingAnalytics(xpTable, 5).analyze(recording(49.8, snapshots));
+        assertEquals(xpTable.totalXp(60), stats.xpGain);
+        assertEquals(10, stats.durationMinutes);
+        assertEquals(0, stats.lowXpPerHour);
+    }
+
+    @Test
+    void gainWithinOneLevelIsTruncatedOnce() throws IOException {
+        XpTable xpTable = XpTable.load(null);
+        assertEquals((int) ((50.5 - 50.2) * 194030), xpTable.xpGain(50.2, 50.5));
+        assertEquals(194030 - (int) (0.5 * 194030) + (int) (0.25 * 212870), xpTable.xpGain(50.5, 51.25));
+    }
+}
@@ -0,0 +1,91 @@
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelingDataParserTest {
+
+    @TempDir
+    Path dir;
+
+    // Eight hours of five-second snapshots in one recording.
+    private static LevelingDataParser.LevelingSession eightHourSession() {
+        double[] snapshots = new double[8 * 720];
+        for (int i=0; i<snapshots.length; i++) {
+            snapshots[i] = 50 + i * 8.0 / snapshots.length;
+        }
+        LevelingDataParser.Recording recording = new LevelingDataParser.Recording();
+        recording.name = "Bastion";
+        recording.startTime = new Date(1_614_600_000_000L);
+        recording.stopTime = new Date(recording.startTime.getTime() + snapshots.length * 5000L);
+        recording.characterLevel = 50;
+        recording.snapshots = SnapshotSeries.of(snapshots);
+        LevelingDataParser.LevelingSession session = new LevelingDataParser.LevelingSession();
+        session.loginTime = recording.startTime;
+        session.recordings = new LevelingDataParser.Recording[] {recording};
+        return session;
+    }
+
+    private Path export(String name, int chartPoints) throws IOException {
+        Path excelFile = dir.resolve(name);
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(null), 5);
+        ExportManifest manifest = ExportManifest.empty(dir.resolve("exportManifest.json"), "test");
+        LevelingDataParser.exportSession(eightHourSession(), excelFile, 0, "test", analytics, chartPoints, manifest, new RunMetrics("test"));
+        return excelFile;
+    }
+
+    private long exportedBytes(String name, int chartPoints) throws IOException {
+        return Files.size(export(name, chartPoints));
+    }
+
+    // Best of a few runs so JIT warm-up and GC pauses don't decide the comparison; ExportBenchmark measures the same pair properly.
+    private long fastestExportMillis(String name, int chartPoints) throws IOException {
+        long fastest = Long.MAX_VALUE;
+        for (int i=0; i<3; i++) {
+            long start = System.nanoTime();
+            export(name, chartPoints);
+            fastest = Math.min(fastest, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return fastest;
+    }
+
+    @Test
+    void downsampledChartsMakeASmallerWorkbook() throws IOException {
+        long full = exportedBytes("full.xlsx", 0);
+        long downsampled = exportedBytes("downsampled.xlsx", 500);
+        assertTrue(downsampled < full, "downsampled workbook is " + downsampled + " bytes against " + full + " at full resolution");
+    }
+
+    @Test
+    void downsampledChartsAreWrittenFaster() throws IOException {
+        long full = fastestExportMillis("full.xlsx", 0);
+        long downsampled = fastestExportMillis("downsampled.xlsx", 500);
+        assertTrue(downsampled < full, "downsampled workbook took " + downsampled + " ms against " + full + " ms at full resolution");
+    }
+
+    @Test
+    void ratesGoOnTheirOwnSheetAfterTheRecordings() throws IOException {
+        exportedBytes("rates.xlsx", 0);
+        try (InputStream in = Files.newInputStream(dir.resolve("rates.xlsx"));
+             XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            assertEquals(3, wb.getNumberOfSheets());
+            assertEquals("Summary", wb.getSheetName(0));
+            assertEquals("Bastion", wb.getSheetName(1));
+            assertEquals("XP Rates", wb.getSheetName(2));
+            for (Row row : wb.getSheet("Summary")) {
+                assertTrue(row.getLastCellNum() <= 8, "summary row " + row.getRowNum() + " reaches column " + row.getLastCellNum());
+            }
+            assertEquals("Bastion", wb.getSheet("XP Rates").getRow(1).getCell(0).getStringCellValue());
+        }
+    }
+}
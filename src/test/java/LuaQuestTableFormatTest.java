@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LuaQuestTableFormatTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void namesWithQuotesBackslashesAndControlCharactersRoundTrip() throws IOException {
+        String name = "The \"Wrath\" of C:\\Maw\tpart\n2";
+        Map<Integer, String> quests = Map.of(57001, name, 57002, "Plain quest");
+        Map<Integer, Map<String, Integer>> questItems = Map.of(170001, Map.of("spellID", 336112, "cooldown", 30));
+        Path file = dir.resolve("questIDToName.txt");
+        LuaQuestTableFormat format = new LuaQuestTableFormat();
+        format.write(new QuestTables(quests, questItems, 0), file);
+
+        String lua = Files.readString(file, StandardCharsets.UTF_8);
+        assertTrue(lua.contains("[57001] = \"the \\\"wrath\\\" of c:\\\\maw\\tpart\\n2\",\r\n"), lua);
+        assertTrue(lua.contains("[\"the \\\"wrath\\\" of c:\\\\maw\\tpart\\n2\"] = true,\r\n"), lua);
+
+        QuestTables read = format.read(file);
+        assertEquals(Map.of(57001, name.toLowerCase(), 57002, "plain quest"), read.quests);
+        assertEquals(questItems, read.questItems);
+    }
+
+    @Test
+    void unescapesLuaDecimalEscapes() {
+        assertEquals("a\u0001b\u00079", LuaQuestTableFormat.luaUnescape("a\\001b\\0079"));
+        assertEquals("a\u0001b", LuaQuestTableFormat.luaUnescape(LuaQuestTableFormat.luaEscape("a\u0001b")));
+    }
+}
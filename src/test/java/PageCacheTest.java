@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PageCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private long blobCount() throws IOException {
+        try (Stream<Path> blobs = Files.list(dir.resolve("blobs"))) {
+            return blobs.count();
+        }
+    }
+
+    @Test
+    void identicalBodiesShareOneContentAddressedBlob() throws IOException {
+        PageCache cache = new PageCache(dir);
+        byte[] body = "<p>same page</p>".getBytes(StandardCharsets.UTF_8);
+        cache.store("https://www.wowhead.com/item=1", body, "UTF-8", "\"a\"", null);
+        cache.store("https://www.wowhead.com/item=2", body, "UTF-8", null, null);
+
+        PageCache.Entry first = cache.lookup("https://www.wowhead.com/item=1");
+        PageCache.Entry second = cache.lookup("https://www.wowhead.com/item=2");
+        assertEquals(Hashing.sha256(body), first.contentHash);
+        assertEquals(first.contentHash, second.contentHash);
+        assertEquals("\"a\"", first.etag);
+        assertNull(second.etag);
+        assertEquals(1, blobCount());
+        assertArrayEquals(body, cache.readBody(second));
+        assertNull(cache.lookup("https://www.wowhead.com/item=3"));
+    }
+
+    @Test
+    void streamedBodyIsStoredOnlyWhenReadToTheEnd() throws IOException {
+        PageCache cache = new PageCache(dir);
+        byte[] body = "<p>streamed page</p>".getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = cache.storeWhileReading("https://www.wowhead.com/quest=1", new ByteArrayInputStream(body), "UTF-8", null, null)) {
+            in.readAllBytes();
+        }
+        try (InputStream in = cache.storeWhileReading("https://www.wowhead.com/quest=2", new ByteArrayInputStream(body), "UTF-8", null, null)) {
+            in.read(new byte[4]);
+        }
+
+        assertEquals(Hashing.sha256(body), cache.lookup("https://www.wowhead.com/quest=1").contentHash);
+        assertNull(cache.lookup("https://www.wowhead.com/quest=2"));
+        assertEquals(1, blobCount());
+    }
+}
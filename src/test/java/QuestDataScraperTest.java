@@ -0,0 +1,136 @@
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestDataScraperTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void journaledFailureIsFetchedOnNextIncrementalRun() throws IOException {
+        AtomicBoolean questDown = new AtomicBoolean(true);
+        StubServer.Responder responder = path -> {
+            if (path.startsWith("/quests/")) {
+                int level = Integer.parseInt(path.replaceAll(".*min-level:(\\d+).*", "$1"));
+                return StubServer.Response.ok("<script>new Listview({data: [{\"category\":1,\"id\":" + level + ",\"name\":\"Quest " + level + "\"}]});</script>");
+            }
+            if (path.startsWith("/quest=")) {
+                if (path.equals("/quest=55") && questDown.get()) {
+                    return StubServer.Response.status(404);
+                }
+                return StubServer.Response.ok("<a href=\"/item=" + (1000 + Integer.parseInt(path.substring(7))) + "\">");
+            }
+            return StubServer.Response.ok("<h1>Item</h1><a href=\"/spell=" + path.substring(6) + "\"></a></noscript>");
+        };
+        try (StubServer server = new StubServer(0, responder)) {
+            String baseUrl = server.url("");
+            QuestTables first = scrape(baseUrl, QuestTables.empty());
+            assertEquals(10, first.quests.size());
+            assertEquals(9, first.questItems.size());
+            long questRequests = server.count("/quest=55");
+            long freshQuestRequests = server.count("/quest=54");
+
+            questDown.set(false);
+            QuestTables second = scrape(baseUrl, first);
+            assertTrue(server.count("/quest=55") > questRequests, "the failed quest page was not fetched again");
+            assertEquals(freshQuestRequests, server.count("/quest=54"), "a fresh quest page was fetched again");
+            assertTrue(second.questItems.containsKey(1055));
+            try (ScrapeJournal journal = ScrapeJournal.open(dir.resolve("scrape.journal"))) {
+                assertTrue(journal.getPreviousFailures().isEmpty(), journal.getPreviousFailures().toString());
+            }
+        }
+    }
+
+    @Test
+    void itemNoLongerReferencedByAQuestIsDropped() throws IOException {
+        AtomicBoolean questHasItem = new AtomicBoolean(true);
+        StubServer.Responder responder = pages(path -> path.equals("/quest=54") && !questHasItem.get() ? "<p>No items</p>" : null);
+        try (StubServer server = new StubServer(0, responder)) {
+            String baseUrl = server.url("");
+            QuestTables first = scrape(baseUrl, QuestTables.empty(), System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7), null);
+            assertTrue(first.questItems.containsKey(1054));
+
+            questHasItem.set(false);
+            QuestTables second = scrape(baseUrl, first, System.currentTimeMillis(), null);
+            assertFalse(second.questItems.containsKey(1054), second.questItems.toString());
+            assertEquals(9, second.questItems.size());
+        }
+    }
+
+    @Test
+    void itemRejectedByChangedRulesIsDroppedAndFailedItemIsKept() throws IOException {
+        AtomicBoolean itemDown = new AtomicBoolean(false);
+        StubServer.Responder responder = pages(path -> {
+            if (path.equals("/item=1053")) {
+                return "<h1>Forbidden relic</h1><a href=\"/spell=1053\"></a></noscript>";
+            }
+            return path.equals("/item=1052") && itemDown.get() ? "" : null;
+        });
+        try (StubServer server = new StubServer(0, responder)) {
+            String baseUrl = server.url("");
+            long freshAfter = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7);
+            QuestTables first = scrape(baseUrl, QuestTables.empty(), freshAfter, null);
+            assertTrue(first.questItems.containsKey(1053));
+            assertTrue(first.questItems.containsKey(1052));
+
+            Path rulesFile = dir.resolve("scraperRules.txt");
+            Files.writeString(rulesFile, "[itemTooltip]\nforbidden\n", StandardCharsets.UTF_8);
+            itemDown.set(true);
+            long itemRequests = server.count("/item=1052");
+            QuestTables second = scrape(baseUrl, first, freshAfter, rulesFile.toString());
+            assertEquals(itemRequests + 1, server.count("/item=1052"), "a failed page was crawled again past the engine's retry budget");
+            assertFalse(second.questItems.containsKey(1053), second.questItems.toString());
+            assertEquals(first.questItems.get(1052), second.questItems.get(1052));
+            assertEquals(9, second.questItems.size());
+        }
+    }
+
+    // Ten listing pages with one quest each; quest N links item 1000+N and item M casts spell M. The override answers first
+    // when it returns a page, and an empty override page stands for a 500.
+    private static StubServer.Responder pages(Function<String, String> override) {
+        return path -> {
+            String page = override.apply(path);
+            if (page != null) {
+                return page.isEmpty() ? StubServer.Response.status(500) : StubServer.Response.ok(page);
+            }
+            if (path.startsWith("/quests/")) {
+                int level = Integer.parseInt(path.replaceAll(".*min-level:(\\d+).*", "$1"));
+                return StubServer.Response.ok("<script>new Listview({data: [{\"category\":1,\"id\":" + level + ",\"name\":\"Quest " + level + "\"}]});</script>");
+            }
+            if (path.startsWith("/quest=")) {
+                return StubServer.Response.ok("<a href=\"/item=" + (1000 + Integer.parseInt(path.substring(7))) + "\">");
+            }
+            return StubServer.Response.ok("<h1>Item</h1><a href=\"/spell=" + path.substring(6) + "\"></a></noscript>");
+        };
+    }
+
+    // One incremental run, as QuestDataScraper.main does it with scraper.incremental set.
+    private QuestTables scrape(String baseUrl, QuestTables existing) throws IOException {
+        return scrape(baseUrl, existing, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7), null);
+    }
+
+    private QuestTables scrape(String baseUrl, QuestTables existing, long freshAfter, String rulesFile) throws IOException {
+        ScraperRules rules = ScraperRules.load(rulesFile);
+        ItemClassificationCache itemCache = ItemClassificationCache.load(dir.resolve("itemClassifications.json"), rules.fingerprint, TimeUnit.DAYS.toMillis(7));
+        try (ScrapeJournal journal = ScrapeJournal.open(dir.resolve("scrape.journal"));
+             CrawlEngine engine = new CrawlEngine(url -> Jsoup.connect(url).execute().body(), 4, 0, 0, 0, new RunMetrics("test"))) {
+            QuestTables tables = QuestDataScraper.scrape(engine, baseUrl, rules, itemCache, journal, existing, freshAfter, new RunMetrics("test"));
+            itemCache.save();
+            journal.complete();
+            return tables;
+        }
+    }
+}
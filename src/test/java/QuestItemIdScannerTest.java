@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuestItemIdScannerTest {
+
+    private static final String questPage = "<html><head><script>var g_items = {};</script></head><body>\n"
+            + "<div class=\"quest\"><a href=\"/item=178149/elysian-salve\">Elysian Salve</a> iteitem=12 item-7 item=x3\n"
+            + "<script>g_items.createIcon(180876, 1, 0); g_items.createIg_items.createIcon(172948, 0); g_items.createIcon(x)</script>\n"
+            + "<a href=\"https://www.wowhead.com/item=174043\">Reward</a> item=99999999999 <span>item=</span>item=item=31</div>\n"
+            + "</body></html>item=4";
+
+    private static Set<Integer> scan(byte[] page, int... chunkEnds) {
+        Set<Integer> itemIds = new TreeSet<>();
+        QuestItemIdScanner scanner = new QuestItemIdScanner(itemIds);
+        int start = 0;
+        for (int end : chunkEnds) {
+            scanner.update(page, start, end - start);
+            start = end;
+        }
+        scanner.update(page, start, page.length - start);
+        scanner.finish();
+        return itemIds;
+    }
+
+    private static Set<Integer> regex(String page) {
+        Set<Integer> itemIds = new TreeSet<>();
+        QuestDataScraper.collectQuestItemIds(itemIds, page);
+        return itemIds;
+    }
+
+    @Test
+    void findsTheSameIdsAsTheRegex() throws IOException {
+        Set<Integer> itemIds = new TreeSet<>();
+        new QuestItemIdScanner(itemIds).scan(new ByteArrayInputStream(questPage.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Set.of(178149, 180876, 172948, 174043, 12, 31, 4), itemIds);
+        // The regex path throws on an ID past Integer.MAX_VALUE where the scanner drops it, so compare without that one.
+        assertEquals(regex(questPage.replace("item=99999999999", "")), itemIds);
+    }
+
+    @Test
+    void tokensSplitAcrossChunksAreFound() {
+        byte[] page = questPage.getBytes(StandardCharsets.UTF_8);
+        Set<Integer> whole = scan(page);
+        for (int split=1; split<page.length; split++) {
+            assertEquals(whole, scan(page, split), "split at " + split);
+        }
+        Random random = new Random(7);
+        for (int round=0; round<100; round++) {
+            int first = 1 + random.nextInt(page.length - 2);
+            int second = first + random.nextInt(page.length - first);
+            assertEquals(whole, scan(page, first, second), "split at " + first + " and " + second);
+        }
+    }
+
+    @Test
+    void interruptedPrefixesRestart() {
+        assertEquals(Set.of(8), scan("item-5 itemitem=8".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Set.of(9), scan("g_items.createIcg_items.createIcon(9)".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Set.of(), scan("g_items.createIcon( 9) item= 5 item=".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Set.of(6), scan("iitem=6".getBytes(StandardCharsets.US_ASCII), 1, 3));
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuestTableFormatTest {
+
+    @TempDir
+    Path dir;
+
+    private QuestTables roundTrip(QuestTableFormat format, QuestTables tables) throws IOException {
+        Path file = dir.resolve(format.defaultFileName());
+        format.write(tables, file);
+        return format.read(file);
+    }
+
+    private void assertRoundTrips(QuestTableFormat format) throws IOException {
+        Map<Integer, String> quests = Map.of(57001, "\u00c9clat of the Maw", 57002, "Plain \"Quoted\" Quest", 57003, "Dragon \ud83d\udc09 Hunt");
+        Map<Integer, Map<String, Integer>> questItems = Map.of(170001, Map.of("spellID", 336112, "cooldown", 30), 170002, Map.of("spellID", 336113));
+        QuestTables read = roundTrip(format, new QuestTables(quests, questItems, 0));
+        assertEquals(Map.of(57001, "\u00e9clat of the maw", 57002, "plain \"quoted\" quest", 57003, "dragon \ud83d\udc09 hunt"), read.quests);
+        assertEquals(questItems, read.questItems);
+
+        read = roundTrip(format, new QuestTables(Map.of(), Map.of(), 0));
+        assertEquals(Map.of(), read.quests);
+        assertEquals(Map.of(), read.questItems);
+    }
+
+    @Test
+    void jsonTablesRoundTrip() throws IOException {
+        assertRoundTrips(new JsonQuestTableFormat());
+    }
+
+    @Test
+    void binaryTablesRoundTrip() throws IOException {
+        assertRoundTrips(new BinaryQuestTableFormat());
+    }
+}
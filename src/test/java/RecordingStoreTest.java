@@ -0,0 +1,85 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordingStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // A SavedVariables file holding one session; each recording is {"startTime": ..., "name": ..., "characterLevel": ..., "snapshots": [...]} JSON.
+    private Path savedVariables(String name, String loginTime, String... recordings) throws IOException {
+        String session = "{\"loginTime\":" + loginTime + ",\"logoutTime\":null,\"recordings\":[" + String.join(",", recordings) + "]}";
+        Path file = dir.resolve(name);
+        Files.writeString(file, "\r\nPoliLevelingUtilDB = \"[" + session.replace("\"", "\\\"") + "]\"\r\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String recording(String startTime, String name, double... snapshots) {
+        StringBuilder levels = new StringBuilder();
+        for (int i=0; i<snapshots.length; i++) {
+            levels.append(i > 0 ? "," : "").append(snapshots[i]);
+        }
+        return "{\"startTime\":" + startTime + ",\"stopTime\":null,\"name\":\"" + name + "\",\"startGetTime\":0,\"characterLevel\":" + snapshots[0]
+                + ",\"snapshots\":[" + levels + "]}";
+    }
+
+    @Test
+    void recordingThatCannotBeAnalyzedIsSkipped() throws IOException {
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(null), 5);
+        Path file = savedVariables("broken.lua", "null",
+                recording("\"03/01/21 10:00:05\"", "Bastion", 52.1, 52.2, 52.3),
+                recording("null", "Maldraxxus", 53.1, 53.2));
+        RecordingStore store = RecordingStore.load(dir.resolve("recordings.store"), analytics.fingerprint());
+        assertEquals(1, store.refresh(List.of(file), mapper, analytics));
+        assertEquals(1, store.size());
+        assertEquals("Bastion", store.query(new RecordingStore.Query()).get(0).name);
+    }
+
+    @Test
+    void removingASourceIsSaved() throws IOException {
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(null), 5);
+        Path first = savedVariables("first.lua", "\"03/01/21 10:00:00\"", recording("\"03/01/21 10:00:05\"", "Bastion", 52.1, 52.2, 52.3));
+        Path second = savedVariables("second.lua", "\"03/02/21 10:00:00\"", recording("\"03/02/21 10:00:05\"", "Maldraxxus", 53.1, 53.2));
+        Path storeFile = dir.resolve("recordings.store");
+
+        RecordingStore store = RecordingStore.load(storeFile, analytics.fingerprint());
+        assertEquals(2, store.refresh(List.of(first, second), mapper, analytics));
+        store.save();
+        store = RecordingStore.load(storeFile, analytics.fingerprint());
+        assertEquals(0, store.refresh(List.of(first, second), mapper, analytics));
+        assertEquals(1, store.refresh(List.of(first), mapper, analytics));
+        store.save();
+
+        store = RecordingStore.load(storeFile, analytics.fingerprint());
+        assertEquals(1, store.size());
+        assertEquals(0, store.refresh(List.of(first), mapper, analytics));
+    }
+
+    @Test
+    void rateRangeQueryIgnoresRecordingsWithoutARate() throws IOException {
+        LevelingAnalytics analytics = new LevelingAnalytics(XpTable.load(null), 5);
+        Path file = savedVariables("flat.lua", "\"03/01/21 10:00:00\"",
+                recording("\"03/01/21 10:00:05\"", "Bastion", 52.1, 52.2, 52.3),
+                recording("\"03/01/21 11:00:05\"", "Idle", 52.3),
+                recording("\"03/01/21 12:00:05\"", "Maldraxxus", 53.1, 53.3, 53.5));
+        RecordingStore store = RecordingStore.load(dir.resolve("recordings.store"), analytics.fingerprint());
+        store.refresh(List.of(file), mapper, analytics);
+        RecordingStore.Query query = new RecordingStore.Query();
+        query.minXpPerMinute = 1;
+        List<RecordingStore.Entry> fast = store.query(query);
+        assertEquals(2, fast.size());
+        assertEquals("Bastion", fast.get(0).name);
+        assertEquals("Maldraxxus", fast.get(1).name);
+    }
+}
@@ -0,0 +1,77 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SavedVariablesReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // luaName is the recording name exactly as it appears inside the Lua string, escapes and all.
+    private static String session(String day, String luaName) {
+        return "{\\\"loginTime\\\":\\\"03/" + day + "/21 10:00:00\\\",\\\"logoutTime\\\":null,\\\"recordings\\\":[{\\\"startTime\\\":\\\"03/" + day
+                + "/21 10:00:05\\\",\\\"stopTime\\\":null,\\\"name\\\":\\\"" + luaName + "\\\",\\\"startGetTime\\\":0,\\\"characterLevel\\\":52.1,"
+                + "\\\"snapshots\\\":[52.1,52.25,52.5]}]}";
+    }
+
+    private List<LevelingDataParser.LevelingSession> read(String... sessions) throws IOException {
+        Path file = dir.resolve("PoliLevelingUtil.lua");
+        Files.writeString(file, "\r\nPoliLevelingUtilDB = \"[" + String.join(",", sessions) + "]\"\r\n", StandardCharsets.UTF_8);
+        List<LevelingDataParser.LevelingSession> read = new ArrayList<>();
+        try (SavedVariablesReader reader = new SavedVariablesReader(file, mapper)) {
+            reader.forEachRemaining(read::add);
+        }
+        return read;
+    }
+
+    @Test
+    void readsEverySessionOfASavedVariablesFile() throws IOException {
+        List<LevelingDataParser.LevelingSession> sessions = read(session("01", "Bastion"), session("02", "Maldraxxus"), session("03", ""));
+        assertEquals(3, sessions.size());
+        LevelingDataParser.Recording recording = sessions.get(1).recordings[0];
+        assertEquals("Maldraxxus", recording.name);
+        assertEquals(52.1, recording.characterLevel);
+        assertArrayEquals(new double[] {52.1, 52.25, 52.5}, new double[] {recording.snapshots.get(0), recording.snapshots.get(1), recording.snapshots.get(2)});
+        assertNull(sessions.get(0).logoutTime);
+        assertEquals("", sessions.get(2).recordings[0].name);
+    }
+
+    @Test
+    void decodesLuaEscapes() throws IOException {
+        List<LevelingDataParser.LevelingSession> sessions = read(
+                session("01", "Caf\\195\\169 in Ardenweald"),
+                session("02", "Caf\\xC3\\xA9 \\226\\128\\148 Revendreth"),
+                session("03", "Letters \\065\\0661 \\z   Maw"),
+                session("04", "Quoted \\\\\\\"name\\\\\\\" and C:\\\\\\\\path"));
+        assertEquals("Caf\u00e9 in Ardenweald", sessions.get(0).recordings[0].name);
+        assertEquals("Caf\u00e9 \u2014 Revendreth", sessions.get(1).recordings[0].name);
+        assertEquals("Letters AB1 Maw", sessions.get(2).recordings[0].name);
+        assertEquals("Quoted \"name\" and C:\\path", sessions.get(3).recordings[0].name);
+    }
+
+    @Test
+    void escapesSplitAcrossReadChunksAreDecoded() throws IOException {
+        // The reader pulls 64K chars at a time; slide a multi-byte escape run across that boundary.
+        String prefix = "[" + session("01", "x").replace("\\\"x\\\"", "\\\"");
+        for (int shift=0; shift<10; shift++) {
+            int padding = (1 << 16) - prefix.length() - 4 + shift;
+            String name = "p".repeat(padding) + "\\195\\169\\xC3\\xA9";
+            List<LevelingDataParser.LevelingSession> sessions = read(session("01", name), session("02", "after"));
+            assertEquals("p".repeat(padding) + "\u00e9\u00e9", sessions.get(0).recordings[0].name, "shift " + shift);
+            assertEquals("after", sessions.get(1).recordings[0].name);
+        }
+    }
+}
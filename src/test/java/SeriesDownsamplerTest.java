@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesDownsamplerTest {
+
+    private static double[][] series(int n) {
+        Random random = new Random(16);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i=0; i<n; i++) {
+            x[i] = i * 5.0;
+            y[i] = i > 0 ? y[i - 1] + random.nextDouble() * 0.001 : 50;
+        }
+        return new double[][] {x, y};
+    }
+
+    @Test
+    void keepsEndpointsAndExactlyTheBudgetInOrder() {
+        double[][] series = series(5760);
+        for (int budget : new int[] {3, 4, 500, 5759}) {
+            int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(series[0], series[1], budget);
+            assertEquals(budget, kept.length);
+            assertEquals(0, kept[0]);
+            assertEquals(series[0].length - 1, kept[budget - 1]);
+            for (int i=1; i<kept.length; i++) {
+                assertTrue(series[0][kept[i]] > series[0][kept[i - 1]], "budget " + budget + " point " + i + " is out of order");
+            }
+        }
+    }
+
+    @Test
+    void seriesThatFitsIsNotDownsampled() {
+        double[][] series = series(500);
+        assertNull(SeriesDownsampler.largestTriangleThreeBuckets(series[0], series[1], 500));
+        assertNull(SeriesDownsampler.largestTriangleThreeBuckets(series[0], series[1], 0));
+    }
+
+    @Test
+    void rejectsBudgetsTooSmallToKeepBothEnds() {
+        double[][] series = series(500);
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.largestTriangleThreeBuckets(series[0], series[1], 1));
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.largestTriangleThreeBuckets(series[0], series[1], 2));
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static LevelingDataParser.Recording recording(String name, Date startTime, Date stopTime, double... snapshots) {
+        LevelingDataParser.Recording recording = new LevelingDataParser.Recording();
+        recording.name = name;
+        recording.startTime = startTime;
+        recording.stopTime = stopTime;
+        recording.startGetTime = 1234;
+        recording.characterLevel = snapshots.length > 0 ? snapshots[0] : 0;
+        recording.snapshots = SnapshotSeries.of(snapshots);
+        return recording;
+    }
+
+    private static LevelingDataParser.LevelingSession session(Date loginTime, Date logoutTime, LevelingDataParser.Recording... recordings) {
+        LevelingDataParser.LevelingSession session = new LevelingDataParser.LevelingSession();
+        session.loginTime = loginTime;
+        session.logoutTime = logoutTime;
+        session.recordings = recordings;
+        return session;
+    }
+
+    private static double[] values(SnapshotSeries series) {
+        double[] values = new double[series.size()];
+        for (int i=0; i<values.length; i++) {
+            values[i] = series.get(i);
+        }
+        return values;
+    }
+
+    private static void assertSameSession(LevelingDataParser.LevelingSession expected, LevelingDataParser.LevelingSession actual) {
+        assertEquals(expected.loginTime, actual.loginTime);
+        assertEquals(expected.logoutTime, actual.logoutTime);
+        assertEquals(expected.recordings.length, actual.recordings.length);
+        for (int i=0; i<expected.recordings.length; i++) {
+            LevelingDataParser.Recording want = expected.recordings[i];
+            LevelingDataParser.Recording got = actual.recordings[i];
+            assertEquals(want.name, got.name);
+            assertEquals(want.startTime, got.startTime);
+            assertEquals(want.stopTime, got.stopTime);
+            assertEquals(want.startGetTime, got.startGetTime);
+            assertEquals(want.characterLevel, got.characterLevel);
+            assertArrayEquals(values(want.snapshots), values(got.snapshots));
+        }
+    }
+
+    @Test
+    void sessionsTeedIntoTheArchiveReadBackUnchanged() throws IOException {
+        Path dataFile = Files.writeString(dir.resolve("PoliLevelingUtil.lua"), "PoliLevelingUtilDB = \"[]\"");
+        Path archiveFile = dir.resolve("sessions.archive");
+        Date login = new Date(1_614_600_000_000L);
+        List<LevelingDataParser.LevelingSession> sessions = List.of(
+                session(login, new Date(login.getTime() + 3_600_000L),
+                        recording("Bastion", login, new Date(login.getTime() + 15_000L), 52.1, 52.2, 52.3),
+                        recording("\u00c9clat du Maw", new Date(login.getTime() + 20_000L), null, 52.3)),
+                session(null, null),
+                session(new Date(login.getTime() + 86_400_000L), null,
+                        recording(null, null, null),
+                        recording("Maldraxxus", new Date(login.getTime() + 86_405_000L), null, 53.1, 53.5)));
+
+        List<LevelingDataParser.LevelingSession> passedThrough = new ArrayList<>();
+        try (SessionArchive.Writer writer = SessionArchive.create(archiveFile, dataFile)) {
+            Iterator<LevelingDataParser.LevelingSession> teed = writer.tee(sessions.iterator());
+            while (teed.hasNext()) {
+                passedThrough.add(teed.next());
+            }
+            writer.commit();
+        }
+        for (int i=0; i<sessions.size(); i++) {
+            assertSame(sessions.get(i), passedThrough.get(i));
+        }
+        assertTrue(SessionArchive.isCurrent(archiveFile, dataFile));
+
+        List<LevelingDataParser.LevelingSession> read = new ArrayList<>();
+        try (SessionArchive.Reader reader = SessionArchive.open(archiveFile)) {
+            reader.forEachRemaining(read::add);
+        }
+        assertEquals(sessions.size(), read.size());
+        for (int i=0; i<sessions.size(); i++) {
+            assertSameSession(sessions.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void uncommittedArchiveIsDiscarded() throws IOException {
+        Path dataFile = Files.writeString(dir.resolve("PoliLevelingUtil.lua"), "PoliLevelingUtilDB = \"[]\"");
+        Path archiveFile = dir.resolve("sessions.archive");
+        try (SessionArchive.Writer writer = SessionArchive.create(archiveFile, dataFile)) {
+            writer.write(session(new Date(1_614_600_000_000L), null));
+        }
+        assertFalse(Files.exists(archiveFile));
+        assertFalse(SessionArchive.isCurrent(archiveFile, dataFile));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
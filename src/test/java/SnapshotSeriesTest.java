@@ -0,0 +1,42 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SnapshotSeriesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private SnapshotSeries roundTrip(SnapshotSeries series) throws IOException {
+        return mapper.readValue(mapper.writeValueAsString(series), SnapshotSeries.class);
+    }
+
+    @Test
+    void emptySeriesRoundTrips() throws IOException {
+        assertEquals("[]", mapper.writeValueAsString(new SnapshotSeries()));
+        assertEquals(0, roundTrip(new SnapshotSeries()).size());
+    }
+
+    @Test
+    void seriesSpanningSeveralChunksRoundTrips() throws IOException {
+        SnapshotSeries series = new SnapshotSeries();
+        for (int i=0; i<10000; i++) {
+            series.add(50 + i / 10000.0);
+        }
+        SnapshotSeries read = roundTrip(series);
+        assertEquals(series.size(), read.size());
+        for (int i=0; i<series.size(); i++) {
+            assertEquals(series.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void integerLevelsAreReadAsDoubles() throws IOException {
+        SnapshotSeries read = mapper.readValue("[50, 50.5, 51]", SnapshotSeries.class);
+        assertEquals(3, read.size());
+        assertEquals(50.5, read.get(1));
+        assertEquals(51.0, read.last());
+    }
+}
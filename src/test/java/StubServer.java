@@ -0,0 +1,116 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// A local HTTP server that answers every request through a Responder, after an optional fixed delay, and logs arrivals.
+class StubServer implements AutoCloseable {
+
+    interface Responder {
+        Response respond(String path);
+    }
+
+    static class Response {
+        final int status;
+        final String body;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response status(int status) {
+            return new Response(status, "");
+        }
+    }
+
+    static class Request {
+        final String path;
+        final long arrivalNanos;
+        private final Headers headers;
+
+        private Request(String path, long arrivalNanos, Headers headers) {
+            this.path = path;
+            this.arrivalNanos = arrivalNanos;
+            this.headers = headers;
+        }
+
+        String header(String name) {
+            return headers.getFirst(name);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Request> requests = new ArrayList<>();
+
+    StubServer(long latencyMillis, Responder responder) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().toString();
+            synchronized (requests) {
+                requests.add(new Request(path, System.nanoTime(), exchange.getRequestHeaders()));
+            }
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                Response response = responder.respond(path);
+                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+                response.headers.forEach(exchange.getResponseHeaders()::add);
+                exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+                if (body.length > 0) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    List<Request> requests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    long count(String path) {
+        return requests().stream().filter(request -> request.path.equals(path)).count();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
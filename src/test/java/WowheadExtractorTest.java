@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WowheadExtractorTest {
+
+    // The expression classifyItem used before WowheadExtractor.extractTooltip replaced it.
+    private static final Pattern tooltipPattern = Pattern.compile("(<h1(.|\\s)+?<\\/noscript>)");
+
+    private static final String listingPage = "<html><head><title>Quests</title></head><body><div id=\"lv-quests\"></div>\n"
+            + "<script>//<![CDATA[\nnew Listview({template: 'quest', id: 'quests', extraCols: [Listview.extraCols.popularity], data: ["
+            + "{\"category\":10565,\"category2\":10,\"id\":57386,\"level\":51,\"name\":\"Pandemonium\",\"reqlevel\":50,\"side\":3,\"wflags\":0,\"xp\":2700},"
+            + "{\"category\":11510,\"category2\":10,\"currencyrewards\":[[1767,35]],\"id\":60021,\"level\":52,\"name\":\"Deprecated Old Not Used\",\"side\":3},"
+            + "{\"category\":-394,\"category2\":-2,\"daily\":1,\"id\":62234,\"level\":60,\"name\":\"A Shady Place\",\"reqlevel\":60,\"side\":3},"
+            + "{\"category\":11462,\"category2\":10,\"id\":59130,\"level\":55,\"money\":1200,\"name\":\"Ritual of Absolution\",\"side\":3}"
+            + "]});\n//]]></script>\n<script>new Listview({template: 'npc', id: 'npcs', data: [{\"id\":166306,\"name\":\"Pelagos\"}]});</script>"
+            + "</body></html>";
+
+    private static final String itemPage = "<html><body><div class=\"text\">\n<h1 class=\"heading-size-1\">Kyrian Smith's Kit</h1>\n"
+            + "<noscript><table><tr><td><b class=\"q1\">Kyrian Smith's Kit</b><br />Quest Item<br />"
+            + "<a href=\"/spell=333960\" class=\"q2\">Use: Repair the forge.</a><br />30 Sec Cooldown</td></tr></table></noscript>\n"
+            + "<h1>Related</h1><noscript>second</noscript></div></body></html>";
+
+    private static Map<Integer, String> regexQuests(String html, ScraperRules rules) {
+        Map<Integer, String> quests = new TreeMap<>();
+        Matcher m = QuestDataScraper.questListingPattern.matcher(html);
+        while (m.find()) {
+            if (!rules.questNameExclusions.matches(m.group(5))) {
+                quests.put(Integer.parseInt(m.group(4)), m.group(5));
+            }
+        }
+        return quests;
+    }
+
+    @Test
+    void listviewExtractionMatchesTheListingRegex() throws IOException {
+        ScraperRules rules = ScraperRules.load(null);
+        Map<Integer, String> quests = new TreeMap<>();
+        QuestDataScraper.collectQuestData(quests, listingPage, rules);
+        assertEquals(Map.of(57386, "Pandemonium", 62234, "A Shady Place", 59130, "Ritual of Absolution"), quests);
+        assertEquals(regexQuests(listingPage, rules), quests);
+
+        WowheadExtractor.ListedQuest daily = WowheadExtractor.extractListedQuests(listingPage).get(2);
+        assertEquals(62234, daily.id);
+        assertEquals(-394, daily.category);
+        assertTrue(daily.daily);
+    }
+
+    @Test
+    void malformedListviewFallsBackToTheRegex() throws IOException {
+        String truncated = listingPage.replace(",\"side\":3},{\"category\":-394", ",\"side\":3}},{\"category\":-394");
+        assertThrows(IOException.class, () -> WowheadExtractor.extractListedQuests(truncated));
+
+        ScraperRules rules = ScraperRules.load(null);
+        Map<Integer, String> quests = new TreeMap<>();
+        QuestDataScraper.collectQuestData(quests, truncated, rules);
+        assertEquals(regexQuests(truncated, rules), quests);
+        assertEquals(3, quests.size());
+    }
+
+    @Test
+    void tooltipExtractionMatchesTheTooltipRegex() {
+        String[] pages = {
+                itemPage,
+                itemPage.replace("</noscript>", ""),
+                itemPage.replace("<h1", "<h2"),
+                "<h1></noscript><h1>x</noscript>",
+                "<h1>\n\n</noscript>",
+        };
+        for (String page : pages) {
+            Matcher m = tooltipPattern.matcher(page);
+            assertEquals(m.find() ? m.group(1) : null, WowheadExtractor.extractTooltip(page), page);
+        }
+        String tooltip = WowheadExtractor.extractTooltip(itemPage);
+        assertEquals("<h1 class=\"heading-size-1\">", tooltip.substring(0, 27));
+        assertEquals("30 Sec Cooldown</td></tr></table></noscript>", tooltip.substring(tooltip.length() - 44));
+        assertNull(WowheadExtractor.extractTooltip("<h1</noscript>"));
+    }
+}